@@ -16,9 +16,22 @@
 'use strict';
 
 module.exports = function ($scope, $http) {
-    $http.get('api/journal').success(function(journal) {
-        $scope.journal = journal;
-    }).error(function(error) {
-        $scope.error = error;
-    });
+    var pageSize = 100;
+    $scope.journal = [];
+    $scope.hasMore = false;
+
+    $scope.loadMore = function() {
+        var params = { limit: pageSize };
+        if ($scope.journal.length > 0) {
+            params.before = $scope.journal[$scope.journal.length - 1].sequence;
+        }
+        $http.get('api/journal', { params: params }).success(function(journal) {
+            $scope.journal = $scope.journal.concat(journal);
+            $scope.hasMore = journal.length === pageSize;
+        }).error(function(error) {
+            $scope.error = error;
+        });
+    };
+
+    $scope.loadMore();
 };
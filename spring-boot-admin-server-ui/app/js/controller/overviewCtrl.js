@@ -26,42 +26,51 @@ module.exports = function ($scope, $location, $interval, $state, $filter, Applic
         Notification.notify(title, options);
     };
 
-    $scope.loadData = function () {
-        Application.query(function (applications) {
-            function refresh(app) {
-                app.refreshing = true;
-                app.info = {};
+    var refresh = function (app) {
+        app.refreshing = true;
+        app.info = {};
 
-                //find application in known applications and copy state --> less flickering
-                for (var j = 0; $scope.applications != null && j < $scope.applications.length; j++) {
-                    if (app.id === $scope.applications[j].id) {
-                        app.infoShort = $scope.applications[j].infoShort;
-                        app.infoDetails = $scope.applications[j].infoDetails;
-                        app.version = $scope.applications[j].version;
-                        //issue notifiaction on state change
-                        if (app.statusInfo.status !== $scope.applications[j].statusInfo.status) {
-                            createNote(app);
-                        }
-                        break;
-                    }
+        //find application in known applications and copy state --> less flickering
+        for (var j = 0; $scope.applications != null && j < $scope.applications.length; j++) {
+            if (app.id === $scope.applications[j].id) {
+                app.infoShort = $scope.applications[j].infoShort;
+                app.infoDetails = $scope.applications[j].infoDetails;
+                app.version = $scope.applications[j].version;
+                //issue notifiaction on state change
+                if (app.statusInfo.status !== $scope.applications[j].statusInfo.status) {
+                    createNote(app);
+                }
+                break;
+            }
+        }
+        app.getInfo().then(function(info) {
+            app.version = info.version;
+            app.infoDetails = null;
+            app.infoShort = '';
+            delete info.version;
+            var infoYml = $filter('yaml')(info);
+            if (infoYml !== '{}\n') {
+                app.infoShort = $filter('limitLines')(infoYml, 3);
+                if (app.infoShort !== infoYml) {
+                   app.infoDetails = $filter('limitLines')(infoYml, 32000, 3);
                 }
-                app.getInfo().then(function(info) {
-                    app.version = info.version;
-                    app.infoDetails = null;
-                    app.infoShort = '';
-                    delete info.version;
-                    var infoYml = $filter('yaml')(info);
-                    if (infoYml !== '{}\n') {
-                        app.infoShort = $filter('limitLines')(infoYml, 3);
-                        if (app.infoShort !== infoYml) {
-                           app.infoDetails = $filter('limitLines')(infoYml, 32000, 3);
-                        }
-                    }
-                }).finally(function(){
-                    app.refreshing = false;
-                });
             }
+        }).finally(function(){
+            app.refreshing = false;
+        });
+    };
+
+    var indexOf = function (id) {
+        for (var i = 0; $scope.applications != null && i < $scope.applications.length; i++) {
+            if ($scope.applications[i].id === id) {
+                return i;
+            }
+        }
+        return -1;
+    };
 
+    $scope.loadData = function () {
+        Application.query(function (applications) {
             for (var i = 0; i < applications.length; i++) {
                 refresh(applications[i]);
             }
@@ -69,6 +78,27 @@ module.exports = function ($scope, $location, $interval, $state, $filter, Applic
         });
     };
 
+    //update just the application affected by an event
+    var onEvent = function (event) {
+        var id = event.application.id;
+        if (event.type === 'DEREGISTRATION') {
+            var index = indexOf(id);
+            if (index > -1) {
+                $scope.applications.splice(index, 1);
+            }
+            return;
+        }
+        Application.get({ id: id }, function (app) {
+            refresh(app);
+            var index = indexOf(id);
+            if (index > -1) {
+                $scope.applications[index] = app;
+            } else if ($scope.applications != null) {
+                $scope.applications.push(app);
+            }
+        });
+    };
+
     $scope.remove = function (application) {
         application.$remove(function () {
             var index = $scope.applications.indexOf(application);
@@ -103,8 +133,27 @@ module.exports = function ($scope, $location, $interval, $state, $filter, Applic
     //initial load
     $scope.loadData();
 
-    // reload site every 30 seconds
-    $interval(function () {
+    var reloadInterval = 10000;
+    if (typeof EventSource !== 'undefined') {
+        // the server pushes the changes; the browser reconnects and resumes by itself
+        var source = new EventSource('api/journal/stream');
+        source.onmessage = function (message) {
+            $scope.$apply(function () {
+                onEvent(JSON.parse(message.data));
+            });
+        };
+        $scope.$on('$destroy', function () {
+            source.close();
+        });
+        // still reload now and then, in case the stream missed an event
+        reloadInterval = 60000;
+    }
+
+    // reload site every 10 seconds, or every minute when streaming
+    var reload = $interval(function () {
         $scope.loadData();
-    }, 10000);
+    }, reloadInterval);
+    $scope.$on('$destroy', function () {
+        $interval.cancel(reload);
+    });
 };
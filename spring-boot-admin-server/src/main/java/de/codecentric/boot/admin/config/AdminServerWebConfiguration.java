@@ -15,37 +15,52 @@
  */
 package de.codecentric.boot.admin.config;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.DefaultResponseErrorHandler;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import de.codecentric.boot.admin.controller.JournalController;
 import de.codecentric.boot.admin.controller.RegistryController;
+import de.codecentric.boot.admin.event.ApplicationsReassignedEvent;
 import de.codecentric.boot.admin.event.ClientApplicationDeregisteredEvent;
 import de.codecentric.boot.admin.event.ClientApplicationRegisteredEvent;
-import de.codecentric.boot.admin.event.RoutesOutdatedEvent;
 import de.codecentric.boot.admin.journal.ApplicationEventJournal;
+import de.codecentric.boot.admin.journal.store.FileJournaledEventStore;
 import de.codecentric.boot.admin.journal.store.JournaledEventStore;
 import de.codecentric.boot.admin.journal.store.SimpleJournaledEventStore;
+import de.codecentric.boot.admin.registry.ApplicationChangeLog;
 import de.codecentric.boot.admin.registry.ApplicationIdGenerator;
 import de.codecentric.boot.admin.registry.ApplicationRegistry;
 import de.codecentric.boot.admin.registry.HashingApplicationUrlIdGenerator;
@@ -59,15 +74,51 @@ public class AdminServerWebConfiguration extends WebMvcConfigurerAdapter
 
 	private ApplicationContext applicationContext;
 
-	@Autowired
-	private ApplicationEventPublisher publisher;
-
 	@Autowired
 	private ApplicationStore applicationStore;
 
-	@Value("${spring.boot.admin.monitor.period:10000}")
+	@Value("${spring.boot.admin.monitor.period:1000}")
 	private long monitorPeriod;
 
+	@Value("${spring.boot.admin.monitor.connect-timeout:2000}")
+	private int connectTimeout;
+
+	@Value("${spring.boot.admin.monitor.read-timeout:5000}")
+	private int readTimeout;
+
+	@Value("${spring.boot.admin.monitor.max-connections:1000}")
+	private int maxConnections;
+
+	@Value("${spring.boot.admin.monitor.max-connections-per-route:2}")
+	private int maxConnectionsPerRoute;
+
+	@Value("${spring.boot.admin.monitor.io-threads:0}")
+	private int ioThreads;
+
+	@Value("${spring.boot.admin.journal.max-events:10000}")
+	private int journalMaxEvents;
+
+	@Value("${spring.boot.admin.journal.max-events-per-application:0}")
+	private int journalMaxEventsPerApplication;
+
+	@Value("${spring.boot.admin.journal.max-age:0}")
+	private long journalMaxAge;
+
+	@Value("${spring.boot.admin.registry.max-changes:1000}")
+	private int maxChanges;
+
+	@Value("${spring.boot.admin.journal.directory:}")
+	private String journalDirectory;
+
+	@Value("${spring.boot.admin.journal.segment-size:16777216}")
+	private int journalSegmentSize;
+
+	@Value("${spring.boot.admin.journal.max-segments:64}")
+	private int journalMaxSegments;
+
+	@Value("${spring.boot.admin.journal.max-pending-events:1000}")
+	private int journalMaxPendingEvents;
+
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) {
 		this.applicationContext = applicationContext;
@@ -97,7 +148,14 @@ public class AdminServerWebConfiguration extends WebMvcConfigurerAdapter
 	 */
 	@Bean
 	public RegistryController registryController() {
-		return new RegistryController(applicationRegistry());
+		return new RegistryController(applicationRegistry(), statusUpdater(),
+				applicationChangeLog());
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public ApplicationChangeLog applicationChangeLog() {
+		return new ApplicationChangeLog(applicationRegistry(), maxChanges);
 	}
 
 	/**
@@ -121,7 +179,7 @@ public class AdminServerWebConfiguration extends WebMvcConfigurerAdapter
 	@ConditionalOnMissingBean
 	@ConfigurationProperties("spring.boot.admin.monitor")
 	public StatusUpdater statusUpdater() {
-		RestTemplate template = new RestTemplate();
+		AsyncRestTemplate template = new AsyncRestTemplate(statusUpdaterRequestFactory());
 		template.getMessageConverters().add(new MappingJackson2HttpMessageConverter());
 		template.setErrorHandler(new DefaultResponseErrorHandler() {
 			@Override
@@ -132,15 +190,39 @@ public class AdminServerWebConfiguration extends WebMvcConfigurerAdapter
 		return new StatusUpdater(template, applicationStore);
 	}
 
+	/**
+	 * @return Non-blocking http client used for querying the applications' health endpoints.
+	 */
+	@Bean
+	@ConditionalOnMissingBean(name = "statusUpdaterRequestFactory")
+	public AsyncClientHttpRequestFactory statusUpdaterRequestFactory() {
+		RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeout)
+				.setConnectionRequestTimeout(connectTimeout).setSocketTimeout(readTimeout)
+				.build();
+		IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+				.setIoThreadCount(ioThreads > 0 ? ioThreads : Runtime.getRuntime()
+						.availableProcessors()).setConnectTimeout(connectTimeout)
+				.setSoTimeout(readTimeout).build();
+		CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+				.setDefaultRequestConfig(requestConfig).setDefaultIOReactorConfig(ioReactorConfig)
+				.setMaxConnPerRoute(maxConnectionsPerRoute).setMaxConnTotal(maxConnections)
+				.build();
+		return new HttpComponentsAsyncClientHttpRequestFactory(client);
+	}
+
 	@EventListener
 	public void onClientApplicationRegistered(ClientApplicationRegisteredEvent event) {
 		statusUpdater().updateStatus(event.getApplication());
-		publisher.publishEvent(new RoutesOutdatedEvent());
 	}
 
 	@EventListener
 	public void onClientApplicationDeregistered(ClientApplicationDeregisteredEvent event) {
-		publisher.publishEvent(new RoutesOutdatedEvent());
+		statusUpdater().cancelUpdates(event.getApplication().getId());
+	}
+
+	@EventListener
+	public void onApplicationsReassigned(ApplicationsReassignedEvent event) {
+		statusUpdater().reconcileOnNextUpdate();
 	}
 
 	@Bean
@@ -159,20 +241,27 @@ public class AdminServerWebConfiguration extends WebMvcConfigurerAdapter
 
 	@Bean
 	@ConditionalOnMissingBean
-	public ApplicationEventJournal applicationEventJournal() {
+	public ApplicationEventJournal applicationEventJournal() throws IOException {
 		return new ApplicationEventJournal(journaledEventStore());
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
-	public JournaledEventStore journaledEventStore() {
-		return new SimpleJournaledEventStore();
+	public JournaledEventStore journaledEventStore() throws IOException {
+		if (StringUtils.hasText(journalDirectory)) {
+			return new FileJournaledEventStore(new File(journalDirectory), journalSegmentSize,
+					journalMaxSegments);
+		}
+		return new SimpleJournaledEventStore(journalMaxEvents, journalMaxEventsPerApplication,
+				journalMaxAge);
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
-	public JournalController journalController() {
-		return new JournalController(applicationEventJournal());
+	public JournalController journalController() throws IOException {
+		JournalController journalController = new JournalController(applicationEventJournal());
+		journalController.setMaxPendingEvents(journalMaxPendingEvents);
+		return journalController;
 	}
 
 	@Bean
@@ -181,4 +270,32 @@ public class AdminServerWebConfiguration extends WebMvcConfigurerAdapter
 		return new SimpleApplicationStore();
 	}
 
+	@Configuration
+	@ConditionalOnClass(PublicMetrics.class)
+	protected static class StatusUpdaterMetricsConfiguration {
+
+		@Autowired
+		private StatusUpdater statusUpdater;
+
+		@Bean
+		public PublicMetrics statusUpdaterMetrics() {
+			return new PublicMetrics() {
+				@Override
+				public Collection<Metric<?>> metrics() {
+					Collection<Metric<?>> metrics = new ArrayList<>();
+					metrics.add(new Metric<>("admin.status.sweep.duration",
+							statusUpdater.getLastSweepDuration()));
+					metrics.add(new Metric<>("admin.status.sweep.checks",
+							statusUpdater.getLastSweepChecks()));
+					metrics.add(new Metric<>("admin.status.sweep.deferred",
+							statusUpdater.getLastSweepDeferred()));
+					metrics.add(new Metric<>("admin.status.checks.active",
+							statusUpdater.getInFlightChecks()));
+					return metrics;
+				}
+			};
+		}
+
+	}
+
 }
@@ -38,6 +38,9 @@ public class DiscoveryClientConfiguration {
 	@Value("${spring.boot.admin.discovery.management.context-path:}")
 	private String managementPath;
 
+	@Value("${spring.boot.admin.discovery.parallelism:10}")
+	private int parallelism;
+
 	@Autowired
 	private DiscoveryClient discoveryClient;
 
@@ -50,6 +53,7 @@ public class DiscoveryClientConfiguration {
 		ApplicationDiscoveryListener listener = new ApplicationDiscoveryListener(discoveryClient,
 				registry);
 		listener.setManagementContextPath(managementPath);
+		listener.setParallelism(parallelism);
 		return listener;
 	}
 }
@@ -15,10 +15,17 @@
  */
 package de.codecentric.boot.admin.config;
 
+import java.util.ArrayList;
+import java.util.Collection;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnSingleCandidate;
@@ -27,22 +34,38 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.hazelcast.config.Config;
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
 import com.hazelcast.core.EntryAdapter;
 import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.EntryListener;
 import com.hazelcast.core.HazelcastInstance;
-import com.hazelcast.core.IList;
+import com.hazelcast.core.IAtomicLong;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.MapEvent;
+import com.hazelcast.core.MemberAttributeEvent;
+import com.hazelcast.core.MembershipEvent;
+import com.hazelcast.core.MembershipListener;
+import com.hazelcast.core.MigrationEvent;
+import com.hazelcast.core.MigrationListener;
+import com.hazelcast.map.listener.EntryAddedListener;
 import com.hazelcast.map.listener.MapListener;
 
+import de.codecentric.boot.admin.event.ApplicationsReassignedEvent;
 import de.codecentric.boot.admin.event.ClientApplicationEvent;
+import de.codecentric.boot.admin.event.RemoteClientApplicationEvent;
 import de.codecentric.boot.admin.event.RoutesOutdatedEvent;
+import de.codecentric.boot.admin.journal.store.ClientApplicationEventSerializer;
 import de.codecentric.boot.admin.journal.store.HazelcastJournaledEventStore;
 import de.codecentric.boot.admin.journal.store.JournaledEventStore;
 import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.registry.store.ApplicationSerializer;
 import de.codecentric.boot.admin.registry.store.ApplicationStore;
+import de.codecentric.boot.admin.registry.store.HazelcastApplicationReplica;
 import de.codecentric.boot.admin.registry.store.HazelcastApplicationStore;
+import de.codecentric.boot.admin.registry.store.StatusRecord;
+import de.codecentric.boot.admin.registry.store.StatusRecordSerializer;
 
 @Configuration
 @ConditionalOnSingleCandidate(HazelcastInstance.class)
@@ -54,8 +77,20 @@ public class HazelcastStoreConfiguration {
 	@Value("${spring.boot.admin.hazelcast.application-store:spring-boot-admin-application-store}")
 	private String hazelcastMapName;
 
+	@Value("${spring.boot.admin.hazelcast.status-store:spring-boot-admin-status-store}")
+	private String statusMapName;
+
 	@Value("${spring.boot.admin.hazelcast.event-store:spring-boot-admin-event-store}")
-	private String eventListName;
+	private String eventMapName;
+
+	@Value("${spring.boot.admin.journal.max-events:10000}")
+	private int eventStoreCapacity;
+
+	@Value("${spring.boot.admin.hazelcast.replica.enabled:false}")
+	private boolean replicaEnabled;
+
+	@Value("${spring.boot.admin.hazelcast.replica.max-staleness:30000}")
+	private long replicaMaxStaleness;
 
 	@Autowired
 	private ApplicationEventPublisher publisher;
@@ -63,20 +98,71 @@ public class HazelcastStoreConfiguration {
 	@Autowired
 	private HazelcastInstance hazelcastInstance;
 
+	/**
+	 * Registers the compact serializers with the Hazelcast-Config-bean, before the
+	 * HazelcastInstance is created from it.
+	 */
+	@Bean
+	public static BeanPostProcessor hazelcastSerializersPostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof Config) {
+					registerSerializers(((Config) bean).getSerializationConfig());
+				}
+				return bean;
+			}
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return bean;
+			}
+		};
+	}
+
+	/**
+	 * Registers the serializers for the Applications, StatusRecords and ClientApplicationEvents.
+	 * All members of the cluster must use them.
+	 *
+	 * @param config the serialization config to add the serializers to.
+	 */
+	public static void registerSerializers(SerializationConfig config) {
+		config.addSerializerConfig(new SerializerConfig().setTypeClass(Application.class)
+				.setImplementation(new ApplicationSerializer()));
+		config.addSerializerConfig(new SerializerConfig().setTypeClass(StatusRecord.class)
+				.setImplementation(new StatusRecordSerializer()));
+		config.addSerializerConfig(new SerializerConfig().setTypeClass(
+				ClientApplicationEvent.class).setImplementation(
+				new ClientApplicationEventSerializer()));
+	}
+
 	@Bean
 	@ConditionalOnMissingBean
 	public ApplicationStore applicationStore() {
 		IMap<String, Application> map = hazelcastInstance.getMap(hazelcastMapName);
 		map.addIndex("name", false);
 		map.addEntryListener((MapListener) entryListener(), false);
-		return new HazelcastApplicationStore(map);
+		IMap<String, StatusRecord> statusMap = hazelcastInstance.getMap(statusMapName);
+		statusMap.addIndex("status", false);
+		hazelcastInstance.getPartitionService().addMigrationListener(migrationListener());
+		hazelcastInstance.getCluster().addMembershipListener(membershipListener());
+		HazelcastApplicationStore store = new HazelcastApplicationStore(map, statusMap,
+				hazelcastInstance.getAtomicLong(hazelcastMapName + "-version"),
+				hazelcastInstance.getPartitionService());
+		if (replicaEnabled) {
+			store.setReplica(new HazelcastApplicationReplica(map, statusMap,
+					replicaMaxStaleness));
+		}
+		return store;
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
 	public JournaledEventStore journaledEventStore() {
-		IList<ClientApplicationEvent> list = hazelcastInstance.getList(eventListName);
-		return new HazelcastJournaledEventStore(list);
+		IMap<Long, ClientApplicationEvent> map = hazelcastInstance.getMap(eventMapName);
+		IAtomicLong sequence = hazelcastInstance.getAtomicLong(eventMapName + "-sequence");
+		map.addEntryListener(journalEntryListener(), true);
+		return new HazelcastJournaledEventStore(map, sequence, eventStoreCapacity);
 	}
 
 	@Bean
@@ -84,7 +170,7 @@ public class HazelcastStoreConfiguration {
 		return new EntryAdapter<String, Application>() {
 			@Override
 			public void onEntryEvent(EntryEvent<String, Application> event) {
-				publisher.publishEvent(new RoutesOutdatedEvent());
+				publisher.publishEvent(new RoutesOutdatedEvent(event.getKey()));
 			}
 
 			@Override
@@ -93,4 +179,94 @@ public class HazelcastStoreConfiguration {
 			}
 		};
 	}
+
+	/**
+	 * Passes the events journaled by the other members on to the local journal listeners.
+	 */
+	@Bean
+	public EntryAddedListener<Long, ClientApplicationEvent> journalEntryListener() {
+		return new EntryAddedListener<Long, ClientApplicationEvent>() {
+			@Override
+			public void entryAdded(EntryEvent<Long, ClientApplicationEvent> event) {
+				if (!event.getMember().localMember()) {
+					publisher.publishEvent(new RemoteClientApplicationEvent(event.getValue()));
+				}
+			}
+		};
+	}
+
+	@Bean
+	public MigrationListener migrationListener() {
+		return new MigrationListener() {
+			@Override
+			public void migrationStarted(MigrationEvent event) {
+			}
+
+			@Override
+			public void migrationCompleted(MigrationEvent event) {
+				publisher.publishEvent(new ApplicationsReassignedEvent());
+			}
+
+			@Override
+			public void migrationFailed(MigrationEvent event) {
+				publisher.publishEvent(new ApplicationsReassignedEvent());
+			}
+		};
+	}
+
+	@Bean
+	public MembershipListener membershipListener() {
+		return new MembershipListener() {
+			@Override
+			public void memberAdded(MembershipEvent event) {
+				publisher.publishEvent(new ApplicationsReassignedEvent());
+			}
+
+			@Override
+			public void memberRemoved(MembershipEvent event) {
+				publisher.publishEvent(new ApplicationsReassignedEvent());
+			}
+
+			@Override
+			public void memberAttributeChanged(MemberAttributeEvent event) {
+			}
+		};
+	}
+
+	@Configuration
+	@ConditionalOnClass(PublicMetrics.class)
+	@ConditionalOnProperty(prefix = "spring.boot.admin.hazelcast.replica", name = "enabled")
+	protected static class ReplicaMetricsConfiguration {
+
+		@Autowired
+		private ApplicationStore applicationStore;
+
+		@Bean
+		public PublicMetrics applicationReplicaMetrics() {
+			return new PublicMetrics() {
+				@Override
+				public Collection<Metric<?>> metrics() {
+					Collection<Metric<?>> metrics = new ArrayList<>();
+					HazelcastApplicationReplica replica = getReplica();
+					if (replica != null) {
+						metrics.add(new Metric<>("admin.store.replica.updates",
+								replica.getUpdates()));
+						metrics.add(new Metric<>("admin.store.replica.syncs", replica.getSyncs()));
+						metrics.add(new Metric<>("admin.store.replica.corrections",
+								replica.getCorrections()));
+						metrics.add(new Metric<>("admin.store.replica.age", replica.getAge()));
+					}
+					return metrics;
+				}
+			};
+		}
+
+		private HazelcastApplicationReplica getReplica() {
+			if (applicationStore instanceof HazelcastApplicationStore) {
+				return ((HazelcastApplicationStore) applicationStore).getReplica();
+			}
+			return null;
+		}
+
+	}
 }
@@ -15,13 +15,18 @@
  */
 package de.codecentric.boot.admin.config;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.endpoint.Endpoint;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.boot.actuate.trace.TraceRepository;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.netflix.zuul.RoutesEndpoint;
 import org.springframework.cloud.netflix.zuul.ZuulFilterInitializer;
@@ -36,17 +41,21 @@ import org.springframework.cloud.netflix.zuul.filters.pre.PreDecorationFilter;
 import org.springframework.cloud.netflix.zuul.filters.pre.Servlet30WrapperFilter;
 import org.springframework.cloud.netflix.zuul.filters.route.SimpleHostRoutingFilter;
 import org.springframework.cloud.netflix.zuul.web.ZuulController;
-import org.springframework.cloud.netflix.zuul.web.ZuulHandlerMapping;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 
 import com.netflix.zuul.ZuulFilter;
 
 import de.codecentric.boot.admin.controller.RegistryController;
+import de.codecentric.boot.admin.event.ClientApplicationDeregisteredEvent;
+import de.codecentric.boot.admin.event.ClientApplicationRegisteredEvent;
 import de.codecentric.boot.admin.event.RoutesOutdatedEvent;
 import de.codecentric.boot.admin.registry.ApplicationRegistry;
 import de.codecentric.boot.admin.zuul.ApplicationRouteLocator;
+import de.codecentric.boot.admin.zuul.ApplicationZuulHandlerMapping;
+import de.codecentric.boot.admin.zuul.RoutesRefresher;
 
 @Configuration
 @EnableConfigurationProperties(ZuulProperties.class)
@@ -66,8 +75,11 @@ public class RevereseZuulProxyConfiguration {
 
 	@Bean
 	public ApplicationRouteLocator routeLocator() {
-		return new ApplicationRouteLocator(this.server.getServletPrefix(), registry,
-				this.zuulProperties, RegistryController.PATH);
+		ApplicationRouteLocator routeLocator = new ApplicationRouteLocator(
+				this.server.getServletPrefix(), registry, this.zuulProperties,
+				RegistryController.PATH);
+		routeLocator.setIgnoredEndpoints(RegistryController.ENDPOINTS);
+		return routeLocator;
 	}
 
 	@Bean
@@ -90,8 +102,8 @@ public class RevereseZuulProxyConfiguration {
 	}
 
 	@Bean
-	public ZuulHandlerMapping zuulHandlerMapping() {
-		return new ZuulHandlerMapping(routeLocator(), zuulController());
+	public ApplicationZuulHandlerMapping zuulHandlerMapping() {
+		return new ApplicationZuulHandlerMapping(routeLocator(), zuulController());
 	}
 
 	// pre filters
@@ -136,10 +148,56 @@ public class RevereseZuulProxyConfiguration {
 
 	}
 
+	@Bean
+	@ConfigurationProperties("spring.boot.admin.routes")
+	public RoutesRefresher routesRefresher() {
+		return new RoutesRefresher(routeLocator(), zuulHandlerMapping());
+	}
+
+	@EventListener
+	public void onClientApplicationRegistered(ClientApplicationRegisteredEvent event) {
+		routesRefresher().refreshRoutes(event.getApplication().getId());
+	}
+
+	@EventListener
+	public void onClientApplicationDeregistered(ClientApplicationDeregisteredEvent event) {
+		routesRefresher().refreshRoutes(event.getApplication().getId());
+	}
+
 	@EventListener
 	public void onRoutesOutdatedEvent(RoutesOutdatedEvent event) {
-		routeLocator().resetRoutes();
-		zuulHandlerMapping().registerHandlers();
+		routesRefresher().routesOutdated(event);
+	}
+
+	@EventListener
+	public void onContextRefreshed(ContextRefreshedEvent event) {
+		routesRefresher().routesOutdated(new RoutesOutdatedEvent());
+	}
+
+	@Configuration
+	@ConditionalOnClass(PublicMetrics.class)
+	protected static class RoutesRefresherMetricsConfiguration {
+
+		@Autowired
+		private RoutesRefresher routesRefresher;
+
+		@Bean
+		public PublicMetrics routesRefresherMetrics() {
+			return new PublicMetrics() {
+				@Override
+				public Collection<Metric<?>> metrics() {
+					Collection<Metric<?>> metrics = new ArrayList<>();
+					metrics.add(new Metric<>("admin.routes.events",
+							routesRefresher.getEventsReceived()));
+					metrics.add(new Metric<>("admin.routes.rebuilds",
+							routesRefresher.getRebuilds()));
+					metrics.add(new Metric<>("admin.routes.refreshes",
+							routesRefresher.getRefreshes()));
+					return metrics;
+				}
+			};
+		}
+
 	}
 
 	@Configuration
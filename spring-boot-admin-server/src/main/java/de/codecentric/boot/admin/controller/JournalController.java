@@ -15,32 +15,229 @@
  */
 package de.codecentric.boot.admin.controller;
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import de.codecentric.boot.admin.event.ClientApplicationEvent;
 import de.codecentric.boot.admin.journal.ApplicationEventJournal;
+import de.codecentric.boot.admin.journal.JournalListener;
+import de.codecentric.boot.admin.journal.JournalQuery;
 
 /**
- * REST-Controller for querying all client application events.
+ * REST-Controller for querying the client application events. The events can be paged by their
+ * sequence and filtered by application, event type and time range, or streamed as server-sent
+ * events. The events are sent to each stream from a separate thread, so a slow client doesn't hold
+ * up the threads publishing the events.
  *
  * @author Johannes Stelzer
  */
 @RestController
 @RequestMapping("/api/journal")
-public class JournalController {
+public class JournalController implements DisposableBean {
 
 	private ApplicationEventJournal eventJournal;
 
+	private final ExecutorService executor;
+
+	/**
+	 * Maximum number of events queued for a single stream. A client falling further behind is
+	 * disconnected; it resumes from the journal when reconnecting.
+	 */
+	private int maxPendingEvents = 1000;
+
 	public JournalController(ApplicationEventJournal eventJournal) {
 		this.eventJournal = eventJournal;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("journal-stream-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newCachedThreadPool(threadFactory);
 	}
 
+	/**
+	 * Query the events, newest first. If only <code>after</code> is given the events are returned
+	 * oldest first, so the client can catch up with the events since the last one seen. Without any
+	 * parameter all events are returned.
+	 *
+	 * @param after only events with a greater sequence.
+	 * @param before only events with a lower sequence.
+	 * @param limit maximum number of events returned.
+	 * @param applicationId only events of the application with this id.
+	 * @param applicationName only events of applications with this name.
+	 * @param type only events of this type.
+	 * @param from only events at or after this timestamp.
+	 * @param to only events before this timestamp.
+	 * @return the matching events.
+	 */
 	@RequestMapping
-	public Collection<ClientApplicationEvent> getJournal() {
-		return eventJournal.getEvents();
+	public Collection<ClientApplicationEvent> getJournal(
+			@RequestParam(value = "after", required = false) Long after,
+			@RequestParam(value = "before", required = false) Long before,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "application", required = false) String applicationId,
+			@RequestParam(value = "name", required = false) String applicationName,
+			@RequestParam(value = "type", required = false) String type,
+			@RequestParam(value = "from", required = false) Long from,
+			@RequestParam(value = "to", required = false) Long to) {
+		if (after == null && before == null && limit == null && applicationId == null
+				&& applicationName == null && type == null && from == null && to == null) {
+			return eventJournal.getEvents();
+		}
+		return eventJournal.getEvents(JournalQuery.create().withAfter(after).withBefore(before)
+				.withLimit(limit).withApplicationId(applicationId)
+				.withApplicationName(applicationName).withType(type).withFrom(from).withTo(to)
+				.build());
+	}
+
+	/**
+	 * Streams the events as server-sent events, with the sequence as event id. If the client
+	 * reconnects with a <code>Last-Event-ID</code> header, the events missed in the meantime are
+	 * sent from the journal first.
+	 *
+	 * @param lastEventId the sequence of the last event the client has seen.
+	 * @return the emitter the events are sent to.
+	 */
+	@RequestMapping(value = "/stream", produces = "text/event-stream")
+	public SseEmitter getJournalStream(
+			@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+		SseEmitter emitter = new SseEmitter();
+		final EventStream stream = new EventStream(emitter, lastEventId);
+		Runnable remove = new Runnable() {
+			@Override
+			public void run() {
+				eventJournal.removeListener(stream);
+			}
+		};
+		emitter.onCompletion(remove);
+		emitter.onTimeout(remove);
+
+		// subscribe before reading the journal, so no event gets lost in between
+		eventJournal.addListener(stream);
+		stream.schedule();
+		return emitter;
+	}
+
+	public void setMaxPendingEvents(int maxPendingEvents) {
+		Assert.isTrue(maxPendingEvents > 0, "maxPendingEvents must be greater than 0");
+		this.maxPendingEvents = maxPendingEvents;
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Sends the events to a single client. The events are queued and sent by at most one task at
+	 * a time; the first task replays the journal since the last event seen by the client. Events
+	 * which were already sent while replaying the journal are skipped.
+	 */
+	private class EventStream implements JournalListener, Runnable {
+		private final SseEmitter emitter;
+		private final Long lastEventId;
+		private final BlockingQueue<ClientApplicationEvent> pending;
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean closed = false;
+		private boolean replayed = false;
+		private long replayedUpTo = -1L;
+
+		private EventStream(SseEmitter emitter, Long lastEventId) {
+			this.emitter = emitter;
+			this.lastEventId = lastEventId;
+			this.pending = new ArrayBlockingQueue<>(maxPendingEvents);
+		}
+
+		@Override
+		public void onJournaled(ClientApplicationEvent event) {
+			if (closed) {
+				return;
+			}
+			if (!pending.offer(event)) {
+				close(new IllegalStateException("Client is too slow, dropped after "
+						+ maxPendingEvents + " pending events"));
+				return;
+			}
+			schedule();
+		}
+
+		private void schedule() {
+			if (!closed && scheduled.compareAndSet(false, true)) {
+				try {
+					executor.execute(this);
+				} catch (RejectedExecutionException ex) {
+					close(ex);
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (!replayed) {
+					replayed = true;
+					replay();
+				}
+				ClientApplicationEvent event;
+				while (!closed && (event = pending.poll()) != null) {
+					if (event.getSequence() > replayedUpTo) {
+						send(event);
+					}
+				}
+			} finally {
+				scheduled.set(false);
+			}
+			// an event may have been queued after the last poll
+			if (!pending.isEmpty()) {
+				schedule();
+			}
+		}
+
+		private void replay() {
+			if (lastEventId == null) {
+				return;
+			}
+			for (ClientApplicationEvent event : eventJournal.getEvents(JournalQuery.create()
+					.withAfter(lastEventId).build())) {
+				if (closed) {
+					return;
+				}
+				send(event);
+				replayedUpTo = Math.max(replayedUpTo, event.getSequence());
+			}
+		}
+
+		private void send(ClientApplicationEvent event) {
+			try {
+				emitter.send(SseEmitter.event().id(String.valueOf(event.getSequence()))
+						.data(event));
+			} catch (IOException | IllegalStateException ex) {
+				// the client is gone
+				close(ex);
+			}
+		}
+
+		private synchronized void close(Exception ex) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			eventJournal.removeListener(this);
+			pending.clear();
+			emitter.completeWithError(ex);
+		}
 	}
 
 }
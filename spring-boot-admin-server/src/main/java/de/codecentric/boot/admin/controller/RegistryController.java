@@ -15,7 +15,13 @@
  */
 package de.codecentric.boot.admin.controller;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,9 +33,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.registry.ApplicationChangeLog;
 import de.codecentric.boot.admin.registry.ApplicationRegistry;
+import de.codecentric.boot.admin.registry.BatchResult;
+import de.codecentric.boot.admin.registry.StatusUpdater;
 
 /**
  * REST controller for controlling registration of managed applications.
@@ -38,13 +48,28 @@ import de.codecentric.boot.admin.registry.ApplicationRegistry;
 @RequestMapping(value = RegistryController.PATH)
 public class RegistryController {
 	public static final String PATH = "/api/applications";
+	public static final String STATUS_INTERVAL = "status-interval";
+
+	/**
+	 * Endpoints below an application which are served here and not proxied to the application.
+	 */
+	public static final Set<String> ENDPOINTS = Collections.singleton(STATUS_INTERVAL);
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(RegistryController.class);
 
 	private final ApplicationRegistry registry;
+	private final StatusUpdater statusUpdater;
+	private final ApplicationChangeLog changeLog;
 
 	public RegistryController(ApplicationRegistry registry) {
+		this(registry, null, null);
+	}
+
+	public RegistryController(ApplicationRegistry registry, StatusUpdater statusUpdater,
+			ApplicationChangeLog changeLog) {
 		this.registry = registry;
+		this.statusUpdater = statusUpdater;
+		this.changeLog = changeLog;
 	}
 
 	/**
@@ -61,30 +86,81 @@ public class RegistryController {
 	}
 
 	/**
-	 * List all registered applications with name
+	 * Register a batch of applications within this admin application at once.
+	 *
+	 * @param apps The application infos.
+	 * @return The result for each application, in the given order.
+	 */
+	@RequestMapping(value = "/batch", method = RequestMethod.POST)
+	public List<BatchResult> registerAll(@RequestBody List<Application> apps) {
+		LOGGER.debug("Register {} applications", apps.size());
+		return registry.registerAll(apps);
+	}
+
+	/**
+	 * List all registered applications with name and status. Answers with 304 Not Modified if the
+	 * registry didn't change since the version given in the If-None-Match header.
 	 *
 	 * @param name the name to search for
+	 * @param status the status to search for
+	 * @param request the request to check the ETag for
 	 * @return List
 	 */
 	@RequestMapping(method = RequestMethod.GET)
 	public Collection<Application> applications(
-			@RequestParam(value = "name", required = false) String name) {
-		LOGGER.debug("Deliver registered applications with name= {}", name);
-		if (name == null || name.isEmpty()) {
-			return registry.getApplications();
+			@RequestParam(value = "name", required = false) String name,
+			@RequestParam(value = "status", required = false) String status, WebRequest request) {
+		if (request.checkNotModified(getETag())) {
+			return null;
+		}
+		LOGGER.debug("Deliver registered applications with name= {}, status= {}", name, status);
+		if (status == null || status.isEmpty()) {
+			if (name == null || name.isEmpty()) {
+				return registry.getApplications();
+			} else {
+				return registry.getApplicationsByName(name);
+			}
+		} else if (name == null || name.isEmpty()) {
+			return registry.getApplicationsByStatus(status.toUpperCase());
 		} else {
-			return registry.getApplicationsByName(name);
+			List<Application> result = new ArrayList<>();
+			for (Application application : registry.getApplicationsByName(name)) {
+				if (status.equalsIgnoreCase(application.getStatusInfo().getStatus())) {
+					result.add(application);
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * List the applications changed since the given version of the registry. If these changes
+	 * aren't known anymore all applications are listed.
+	 *
+	 * @param since the version token of the registry the client has seen
+	 * @return the changes and the current version token
+	 */
+	@RequestMapping(value = "/changes", method = RequestMethod.GET)
+	public ResponseEntity<?> changes(
+			@RequestParam(value = "since", required = false) String since) {
+		if (changeLog == null) {
+			return ResponseEntity.notFound().build();
 		}
+		return ResponseEntity.ok(changeLog.getChangesSince(since));
 	}
 
 	/**
 	 * Get a single application out of the registry.
 	 *
 	 * @param id The application identifier.
+	 * @param request the request to check the ETag for
 	 * @return The registered application.
 	 */
 	@RequestMapping(value = "/{id}", method = RequestMethod.GET)
-	public ResponseEntity<?> get(@PathVariable String id) {
+	public ResponseEntity<?> get(@PathVariable String id, WebRequest request) {
+		if (request.checkNotModified(getETag())) {
+			return null;
+		}
 		LOGGER.debug("Deliver registered application with ID '{}'", id);
 		Application application = registry.getApplication(id);
 		if (application != null) {
@@ -94,6 +170,27 @@ public class RegistryController {
 		}
 	}
 
+	/**
+	 * Get the interval the status of a single application is updated with.
+	 *
+	 * @param id The application identifier.
+	 * @return The interval and the time of the next update in ms and whether the application is
+	 *         probed before the next check.
+	 */
+	@RequestMapping(value = "/{id}/" + STATUS_INTERVAL, method = RequestMethod.GET)
+	public ResponseEntity<?> statusInterval(@PathVariable String id) {
+		LOGGER.debug("Deliver status interval of application with ID '{}'", id);
+		if (statusUpdater == null || registry.getApplication(id) == null) {
+			return ResponseEntity.notFound().build();
+		}
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("interval", statusUpdater.getInterval(id));
+		body.put("lastChecked", statusUpdater.getLastChecked(id));
+		body.put("nextUpdate", statusUpdater.getNextUpdate(id));
+		body.put("circuitOpen", statusUpdater.isCircuitOpen(id));
+		return ResponseEntity.ok(body);
+	}
+
 	/**
 	 * Unregister an application within this admin application.
 	 *
@@ -111,4 +208,23 @@ public class RegistryController {
 		}
 	}
 
+	/**
+	 * Unregister a batch of applications within this admin application at once.
+	 *
+	 * @param ids The application ids.
+	 * @return The result for each id, in the given order.
+	 */
+	@RequestMapping(value = "/batch", method = RequestMethod.DELETE)
+	public List<BatchResult> unregisterAll(@RequestBody List<String> ids) {
+		LOGGER.debug("Unregister {} applications", ids.size());
+		return registry.deregisterAll(ids);
+	}
+
+	/**
+	 * The registry's version identifies the state of all applications.
+	 */
+	private String getETag() {
+		return "\"" + registry.getVersion() + "\"";
+	}
+
 }
@@ -15,6 +15,28 @@
  */
 package de.codecentric.boot.admin.discovery;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
@@ -22,17 +44,25 @@ import org.springframework.cloud.client.discovery.event.HeartbeatMonitor;
 import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
 import org.springframework.cloud.client.discovery.event.ParentHeartbeatEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.StringUtils;
 
+import de.codecentric.boot.admin.event.ClientApplicationDeregisteredEvent;
 import de.codecentric.boot.admin.model.Application;
 import de.codecentric.boot.admin.registry.ApplicationRegistry;
+import de.codecentric.boot.admin.registry.BatchResult;
 
 /**
  * Listener for Heartbeats events to publish all services to the application registry.
+ * <p>
+ * The applications converted from the discovered instances serve as their fingerprints: only
+ * instances not discovered before (or with changed urls) are registered, and the applications of
+ * vanished instances are deregistered. The instances of the services are queried in parallel.
  *
  * @author Johannes Stelzer
  */
-public class ApplicationDiscoveryListener {
+public class ApplicationDiscoveryListener implements DisposableBean {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationDiscoveryListener.class);
 
 	private final DiscoveryClient discoveryClient;
 
@@ -40,6 +70,19 @@ public class ApplicationDiscoveryListener {
 
 	private final HeartbeatMonitor monitor = new HeartbeatMonitor();
 
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * The discovered applications per id they are registered with. Different instances may share
+	 * the same health url and therefore the id.
+	 */
+	private final ConcurrentMap<String, Set<Application>> registered = new ConcurrentHashMap<>();
+
+	/**
+	 * The discovered applications the registry rejected; only used by {@link #discover()}.
+	 */
+	private Set<Application> rejected = Collections.emptySet();
+
 	private String managementContextPath = "";
 
 	private String serviceContextPath = "";
@@ -50,6 +93,11 @@ public class ApplicationDiscoveryListener {
 			ApplicationRegistry registry) {
 		this.discoveryClient = discoveryClient;
 		this.registry = registry;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("discovery-");
+		threadFactory.setDaemon(true);
+		this.executor = new ThreadPoolExecutor(10, 10, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), threadFactory);
+		this.executor.allowCoreThreadTimeOut(true);
 	}
 
 	@EventListener
@@ -67,18 +115,136 @@ public class ApplicationDiscoveryListener {
 		discoverIfNeeded(event.getValue());
 	}
 
+	/**
+	 * Forgets applications deregistered by others, so they are registered again with the next
+	 * discovery.
+	 */
+	@EventListener
+	public void onApplicationDeregistered(ClientApplicationDeregisteredEvent event) {
+		registered.remove(event.getApplication().getId());
+	}
+
 	private void discoverIfNeeded(Object value) {
 		if (this.monitor.update(value)) {
 			discover();
 		}
 	}
 
-	protected void discover() {
-		for (String serviceId : discoveryClient.getServices()) {
-			for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
-				registry.register(convert(instance));
+	protected synchronized void discover() {
+		Set<String> serviceIds = new HashSet<>(discoveryClient.getServices());
+		Map<String, Collection<ServiceInstance>> instances = getInstances(serviceIds);
+
+		Map<Application, String> known = new HashMap<>();
+		for (Entry<String, Set<Application>> entry : registered.entrySet()) {
+			for (Application application : entry.getValue()) {
+				known.put(application, entry.getKey());
+			}
+		}
+
+		Map<String, Set<Application>> current = new HashMap<>();
+		Set<Application> stillRejected = new HashSet<>();
+		List<Application> added = new ArrayList<>();
+		for (Entry<Application, String> entry : known.entrySet()) {
+			// keep the applications of services which couldn't be queried
+			String serviceId = entry.getKey().getName();
+			if (serviceIds.contains(serviceId) && !instances.containsKey(serviceId)) {
+				add(current, entry.getValue(), entry.getKey());
+			}
+		}
+		for (Collection<ServiceInstance> serviceInstances : instances.values()) {
+			for (ServiceInstance instance : serviceInstances) {
+				Application application = convert(instance);
+				String id = known.get(application);
+				if (id != null) {
+					add(current, id, application);
+				} else if (rejected.contains(application)) {
+					stillRejected.add(application);
+				} else if (!added.contains(application)) {
+					added.add(application);
+				}
+			}
+		}
+
+		List<BatchResult> results = added.isEmpty() ? Collections.<BatchResult> emptyList()
+				: registry.registerAll(added);
+		Set<String> addedIds = new HashSet<>();
+		for (int i = 0; i < results.size(); i++) {
+			BatchResult result = results.get(i);
+			if (result.isSuccess()) {
+				add(current, result.getId(), added.get(i));
+				addedIds.add(result.getId());
+			} else {
+				stillRejected.add(added.get(i));
+				LOGGER.warn("Couldn't register discovered application {}: {}", added.get(i),
+						result.getError());
+			}
+		}
+		rejected = stillRejected;
+
+		// merge per id, so an id deregistered meanwhile isn't restored
+		for (Entry<String, Set<Application>> entry : current.entrySet()) {
+			String id = entry.getKey();
+			Set<Application> previous = registered.get(id);
+			if (addedIds.contains(id)) {
+				registered.put(id, entry.getValue());
+				if (registry.getApplication(id) == null) {
+					registered.remove(id, entry.getValue());
+				}
+			} else if (previous != null && !previous.equals(entry.getValue())) {
+				registered.replace(id, previous, entry.getValue());
 			}
 		}
+
+		// different instances may share the same health url and therefore the id
+		List<String> vanished = new ArrayList<>();
+		for (String id : new HashSet<>(known.values())) {
+			if (!current.containsKey(id)) {
+				registered.remove(id);
+				vanished.add(id);
+			}
+		}
+		if (!vanished.isEmpty()) {
+			registry.deregisterAll(vanished);
+		}
+	}
+
+	private static void add(Map<String, Set<Application>> applications, String id,
+			Application application) {
+		Set<Application> shared = applications.get(id);
+		if (shared == null) {
+			shared = new HashSet<>();
+			applications.put(id, shared);
+		}
+		shared.add(application);
+	}
+
+	/**
+	 * @return the instances per service; services which couldn't be queried are missing.
+	 */
+	private Map<String, Collection<ServiceInstance>> getInstances(Collection<String> serviceIds) {
+		Map<String, Future<List<ServiceInstance>>> futures = new LinkedHashMap<>();
+		for (final String serviceId : serviceIds) {
+			futures.put(serviceId, executor.submit(new Callable<List<ServiceInstance>>() {
+				@Override
+				public List<ServiceInstance> call() throws Exception {
+					return discoveryClient.getInstances(serviceId);
+				}
+			}));
+		}
+
+		Map<String, Collection<ServiceInstance>> instances = new LinkedHashMap<>();
+		for (Entry<String, Future<List<ServiceInstance>>> future : futures.entrySet()) {
+			try {
+				instances.put(future.getKey(), future.getValue().get());
+			} catch (ExecutionException ex) {
+				LOGGER.warn("Couldn't get the instances of service {}", future.getKey(),
+						ex.getCause());
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		return instances;
 	}
 
 	protected Application convert(ServiceInstance instance) {
@@ -102,6 +268,24 @@ public class ApplicationDiscoveryListener {
 		this.healthEndpoint = healthEndpoint;
 	}
 
+	/**
+	 * @param parallelism the maximum number of services queried for their instances at once.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(parallelism);
+			executor.setCorePoolSize(parallelism);
+		} else {
+			executor.setCorePoolSize(parallelism);
+			executor.setMaximumPoolSize(parallelism);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
 	protected final String append(String uri, String path) {
 		String baseUri = uri.replaceFirst("/+$", "");
 		if (StringUtils.isEmpty(path)) {
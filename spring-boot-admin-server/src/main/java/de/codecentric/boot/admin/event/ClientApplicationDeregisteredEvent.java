@@ -29,6 +29,10 @@ public class ClientApplicationDeregisteredEvent extends ClientApplicationEvent {
 		super(application);
 	}
 
+	public ClientApplicationDeregisteredEvent(Application application, long timestamp) {
+		super(application, timestamp);
+	}
+
 	@Override
 	public String getType() {
 		return "DEREGISTRATION";
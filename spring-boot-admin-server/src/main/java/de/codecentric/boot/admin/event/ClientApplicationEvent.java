@@ -31,9 +31,18 @@ public abstract class ClientApplicationEvent implements Serializable {
 
 	private final long timestamp;
 
+	private long sequence = -1L;
+
 	public ClientApplicationEvent(Application application) {
+		this(application, System.currentTimeMillis());
+	}
+
+	/**
+	 * Restores an event which happened at the given time, e.g. when read from a persistent journal.
+	 */
+	protected ClientApplicationEvent(Application application, long timestamp) {
 		this.application = application;
-		this.timestamp = System.currentTimeMillis();
+		this.timestamp = timestamp;
 	}
 
 	/**
@@ -43,6 +52,18 @@ public abstract class ClientApplicationEvent implements Serializable {
 		return this.timestamp;
 	}
 
+	/**
+	 * Return the position of the event in the journal, assigned in ascending order when the event
+	 * is stored. -1 if the event wasn't journaled.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	public void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
 	/**
 	 * Return the affected application.
 	 */
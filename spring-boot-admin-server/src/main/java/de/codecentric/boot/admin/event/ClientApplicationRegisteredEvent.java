@@ -29,6 +29,10 @@ public class ClientApplicationRegisteredEvent extends ClientApplicationEvent {
 		super(application);
 	}
 
+	public ClientApplicationRegisteredEvent(Application application, long timestamp) {
+		super(application, timestamp);
+	}
+
 	@Override
 	public String getType() {
 		return "REGISTRATION";
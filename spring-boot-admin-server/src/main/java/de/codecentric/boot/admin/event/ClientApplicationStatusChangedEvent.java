@@ -35,6 +35,13 @@ public class ClientApplicationStatusChangedEvent extends ClientApplicationEvent
 		this.to = to;
 	}
 
+	public ClientApplicationStatusChangedEvent(Application application, StatusInfo from,
+			StatusInfo to, long timestamp) {
+		super(application, timestamp);
+		this.from = from;
+		this.to = to;
+	}
+
 	public StatusInfo getFrom() {
 		return from;
 	}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.event;
+
+import java.io.Serializable;
+
+/**
+ * Signals that another member of the cluster journaled a ClientApplicationEvent. Unlike the event
+ * itself it isn't journaled again, it is only passed on to the local journal listeners.
+ */
+public class RemoteClientApplicationEvent implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final ClientApplicationEvent event;
+
+	public RemoteClientApplicationEvent(ClientApplicationEvent event) {
+		this.event = event;
+	}
+
+	public ClientApplicationEvent getEvent() {
+		return event;
+	}
+
+}
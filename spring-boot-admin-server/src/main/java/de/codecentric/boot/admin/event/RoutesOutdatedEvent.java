@@ -18,11 +18,30 @@ package de.codecentric.boot.admin.event;
 import java.io.Serializable;
 
 /**
- * Signals that the routes needs to be recalculated.
+ * Signals that the routes needs to be recalculated. If an application id is given only the routes
+ * of this application are outdated.
  * 
  * @author Johannes Edmeier
  */
 public class RoutesOutdatedEvent implements Serializable {
 	private static final long serialVersionUID = 1L;
 
+	private final String applicationId;
+
+	public RoutesOutdatedEvent() {
+		this(null);
+	}
+
+	public RoutesOutdatedEvent(String applicationId) {
+		this.applicationId = applicationId;
+	}
+
+	/**
+	 * Return the id of the application whose routes are outdated or <code>null</code> if all
+	 * routes are outdated.
+	 */
+	public String getApplicationId() {
+		return applicationId;
+	}
+
 }
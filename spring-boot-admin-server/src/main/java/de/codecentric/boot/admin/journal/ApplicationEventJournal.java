@@ -16,20 +16,29 @@
 package de.codecentric.boot.admin.journal;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
 
 import de.codecentric.boot.admin.event.ClientApplicationEvent;
+import de.codecentric.boot.admin.event.RemoteClientApplicationEvent;
 import de.codecentric.boot.admin.journal.store.JournaledEventStore;
 
 /**
- * Listens for all ClientApplicationEvents and stores them as JournaledEvents in a store.
+ * Listens for all ClientApplicationEvents and stores them as JournaledEvents in a store. The
+ * listeners are notified about the stored events and about the events journaled by other members
+ * of a cluster.
  *
  * @author Johannes Stelzer
  */
 public class ApplicationEventJournal {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationEventJournal.class);
 
 	private final JournaledEventStore store;
+	private final List<JournalListener> listeners = new CopyOnWriteArrayList<>();
 
 	public ApplicationEventJournal(JournaledEventStore store) {
 		this.store = store;
@@ -38,9 +47,37 @@ public class ApplicationEventJournal {
 	@EventListener
 	public void onClientApplicationEvent(ClientApplicationEvent event) {
 		store.store(event);
+		notifyListeners(event);
+	}
+
+	@EventListener
+	public void onRemoteClientApplicationEvent(RemoteClientApplicationEvent event) {
+		notifyListeners(event.getEvent());
+	}
+
+	private void notifyListeners(ClientApplicationEvent event) {
+		for (JournalListener listener : listeners) {
+			try {
+				listener.onJournaled(event);
+			} catch (RuntimeException ex) {
+				LOGGER.warn("Listener {} failed for {}", listener, event, ex);
+			}
+		}
+	}
+
+	public void addListener(JournalListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(JournalListener listener) {
+		listeners.remove(listener);
 	}
 
 	public Collection<ClientApplicationEvent> getEvents() {
 		return store.findAll();
 	}
+
+	public Collection<ClientApplicationEvent> getEvents(JournalQuery query) {
+		return store.find(query);
+	}
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.journal;
+
+import de.codecentric.boot.admin.event.ClientApplicationEvent;
+
+/**
+ * Describes which events to read from the journal. Events are returned newest first, starting
+ * below the <code>before</code> sequence. If only an <code>after</code> sequence is given the
+ * events are returned oldest first, starting above it, so a client can catch up with all events
+ * since the last one it has seen.
+ */
+public class JournalQuery {
+
+	private final long after;
+	private final long before;
+	private final int limit;
+	private final String applicationId;
+	private final String applicationName;
+	private final String type;
+	private final long from;
+	private final long to;
+
+	protected JournalQuery(long after, long before, int limit, String applicationId,
+			String applicationName, String type, long from, long to) {
+		this.after = after;
+		this.before = before;
+		this.limit = limit;
+		this.applicationId = applicationId;
+		this.applicationName = applicationName;
+		this.type = type;
+		this.from = from;
+		this.to = to;
+	}
+
+	public static Builder create() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private long after = -1L;
+		private long before = Long.MAX_VALUE;
+		private int limit = Integer.MAX_VALUE;
+		private String applicationId;
+		private String applicationName;
+		private String type;
+		private long from = Long.MIN_VALUE;
+		private long to = Long.MAX_VALUE;
+
+		private Builder() {
+		}
+
+		public Builder withAfter(Long after) {
+			this.after = after != null ? after : -1L;
+			return this;
+		}
+
+		public Builder withBefore(Long before) {
+			this.before = before != null ? before : Long.MAX_VALUE;
+			return this;
+		}
+
+		public Builder withLimit(Integer limit) {
+			this.limit = limit != null && limit > 0 ? limit : Integer.MAX_VALUE;
+			return this;
+		}
+
+		public Builder withApplicationId(String applicationId) {
+			this.applicationId = applicationId;
+			return this;
+		}
+
+		public Builder withApplicationName(String applicationName) {
+			this.applicationName = applicationName;
+			return this;
+		}
+
+		public Builder withType(String type) {
+			this.type = type;
+			return this;
+		}
+
+		public Builder withFrom(Long from) {
+			this.from = from != null ? from : Long.MIN_VALUE;
+			return this;
+		}
+
+		public Builder withTo(Long to) {
+			this.to = to != null ? to : Long.MAX_VALUE;
+			return this;
+		}
+
+		public JournalQuery build() {
+			return new JournalQuery(after, before, limit, applicationId, applicationName, type,
+					from, to);
+		}
+	}
+
+	/**
+	 * @return true if the events are to be returned oldest first.
+	 */
+	public boolean isAscending() {
+		return after >= 0L && before == Long.MAX_VALUE;
+	}
+
+	/**
+	 * @param event the event to test
+	 * @return true if the event matches all filters of this query.
+	 */
+	public boolean matches(ClientApplicationEvent event) {
+		return event.getSequence() > after && event.getSequence() < before
+				&& event.getTimestamp() >= from && event.getTimestamp() < to
+				&& matchesApplication(event) && (type == null || type.equals(event.getType()));
+	}
+
+	private boolean matchesApplication(ClientApplicationEvent event) {
+		if (applicationId == null && applicationName == null) {
+			return true;
+		}
+		if (event.getApplication() == null) {
+			return false;
+		}
+		return (applicationId == null || applicationId.equals(event.getApplication().getId()))
+				&& (applicationName == null || applicationName.equals(event.getApplication()
+						.getName()));
+	}
+
+	public long getAfter() {
+		return after;
+	}
+
+	public long getBefore() {
+		return before;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public String getApplicationId() {
+		return applicationId;
+	}
+
+	public String getApplicationName() {
+		return applicationName;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public long getFrom() {
+		return from;
+	}
+
+	public long getTo() {
+		return to;
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.journal.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import de.codecentric.boot.admin.event.ClientApplicationDeregisteredEvent;
+import de.codecentric.boot.admin.event.ClientApplicationEvent;
+import de.codecentric.boot.admin.event.ClientApplicationRegisteredEvent;
+import de.codecentric.boot.admin.event.ClientApplicationStatusChangedEvent;
+import de.codecentric.boot.admin.registry.store.ApplicationCodec;
+
+/**
+ * Compact binary encoding of the ClientApplicationEvents. The encoding starts with the sequence
+ * and the timestamp, so these can be read without decoding the whole event.
+ */
+final class EventCodec {
+	private static final byte REGISTERED = 1;
+	private static final byte DEREGISTERED = 2;
+	private static final byte STATUS_CHANGED = 3;
+
+	private EventCodec() {
+	}
+
+	static byte[] encode(ClientApplicationEvent event) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		write(out, event);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	static ClientApplicationEvent decode(byte[] bytes) throws IOException {
+		return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	static void write(DataOutput out, ClientApplicationEvent event) throws IOException {
+		out.writeLong(event.getSequence());
+		out.writeLong(event.getTimestamp());
+		if (event instanceof ClientApplicationRegisteredEvent) {
+			out.writeByte(REGISTERED);
+			ApplicationCodec.writeApplication(out, event.getApplication());
+		} else if (event instanceof ClientApplicationDeregisteredEvent) {
+			out.writeByte(DEREGISTERED);
+			ApplicationCodec.writeApplication(out, event.getApplication());
+		} else if (event instanceof ClientApplicationStatusChangedEvent) {
+			ClientApplicationStatusChangedEvent changed = (ClientApplicationStatusChangedEvent) event;
+			out.writeByte(STATUS_CHANGED);
+			ApplicationCodec.writeApplication(out, event.getApplication());
+			ApplicationCodec.writeStatusInfo(out, changed.getFrom());
+			ApplicationCodec.writeStatusInfo(out, changed.getTo());
+		} else {
+			throw new IllegalArgumentException("Unsupported event " + event.getClass().getName());
+		}
+	}
+
+	static ClientApplicationEvent read(DataInput in) throws IOException {
+		long sequence = in.readLong();
+		long timestamp = in.readLong();
+		byte type = in.readByte();
+		ClientApplicationEvent event;
+		switch (type) {
+		case REGISTERED:
+			event = new ClientApplicationRegisteredEvent(ApplicationCodec.readApplication(in),
+					timestamp);
+			break;
+		case DEREGISTERED:
+			event = new ClientApplicationDeregisteredEvent(ApplicationCodec.readApplication(in),
+					timestamp);
+			break;
+		case STATUS_CHANGED:
+			event = new ClientApplicationStatusChangedEvent(ApplicationCodec.readApplication(in),
+					ApplicationCodec.readStatusInfo(in), ApplicationCodec.readStatusInfo(in),
+					timestamp);
+			break;
+		default:
+			throw new IOException("Unknown event type " + type);
+		}
+		event.setSequence(sequence);
+		return event;
+	}
+
+}
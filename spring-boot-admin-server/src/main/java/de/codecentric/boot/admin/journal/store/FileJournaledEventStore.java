@@ -0,0 +1,467 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.journal.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+import de.codecentric.boot.admin.event.ClientApplicationEvent;
+import de.codecentric.boot.admin.journal.JournalQuery;
+
+/**
+ * Persistent Store for JournaledEvents. The events are appended to memory-mapped segment files in
+ * a compact binary encoding. Concurrent calls to {@link #store(ClientApplicationEvent)} are
+ * written by a single writer thread and forced to disk together (group commit).
+ * <p>
+ * Each segment keeps a sparse index of blocks of events with their sequence and timestamp range,
+ * so reads skip all blocks outside the requested range. The index of a full segment is written
+ * next to it, so on startup only the last segment has to be scanned. When the maximum number of
+ * segments is exceeded the oldest segment is deleted.
+ */
+public class FileJournaledEventStore implements JournaledEventStore, DisposableBean {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileJournaledEventStore.class);
+	private static final String SEGMENT_SUFFIX = ".journal";
+	private static final String INDEX_SUFFIX = ".index";
+	private static final int HEADER_SIZE = 8;
+	private static final int BLOCK_SIZE = 64;
+	private static final int MAX_BATCH = 1024;
+
+	private final File directory;
+	private final int segmentSize;
+	private final int maxSegments;
+	private final List<Segment> segments = new CopyOnWriteArrayList<>();
+	private final BlockingQueue<PendingEvent> queue = new LinkedBlockingQueue<>();
+	private final Thread writer;
+	private volatile boolean running = true;
+	private long nextSequence;
+
+	/**
+	 * @param directory the directory the segment files are kept in.
+	 * @param segmentSize the size of a single segment file in bytes.
+	 * @param maxSegments the maximum number of segments kept; 0 for no limit.
+	 * @throws IOException if the existing segments can't be read.
+	 */
+	public FileJournaledEventStore(File directory, int segmentSize, int maxSegments)
+			throws IOException {
+		Assert.isTrue(segmentSize >= 4096, "segmentSize must be at least 4096 bytes");
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxSegments = maxSegments;
+		recover();
+		this.writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeLoop();
+			}
+		}, "journal-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	private void recover() throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Couldn't create journal directory " + directory);
+		}
+		File[] files = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(SEGMENT_SUFFIX);
+			}
+		});
+		// the zero-padded base sequences in the names keep the files in order
+		Arrays.sort(files);
+		for (int i = 0; i < files.length; i++) {
+			String name = files[i].getName();
+			long baseSequence = Long.parseLong(name.substring(0, name.length()
+					- SEGMENT_SUFFIX.length()));
+			Segment segment = new Segment(baseSequence, files[i], (int) files[i].length());
+			boolean tail = i == files.length - 1;
+			if (tail || !segment.readIndex()) {
+				segment.scan();
+			}
+			segments.add(segment);
+		}
+		if (segments.isEmpty()) {
+			segments.add(createSegment(0L));
+		}
+		nextSequence = getTail().getLastSequence() + 1;
+		LOGGER.info("Recovered journal with {} segments from {}, next sequence is {}",
+				segments.size(), directory, nextSequence);
+	}
+
+	@Override
+	public Collection<ClientApplicationEvent> findAll() {
+		return find(JournalQuery.create().build());
+	}
+
+	@Override
+	public Collection<ClientApplicationEvent> find(JournalQuery query) {
+		List<ClientApplicationEvent> result = new ArrayList<>();
+		List<Segment> snapshot = new ArrayList<>(segments);
+		if (!query.isAscending()) {
+			Collections.reverse(snapshot);
+		}
+		for (Segment segment : snapshot) {
+			List<Block> blocks = Arrays.asList(segment.getBlocks());
+			if (!query.isAscending()) {
+				Collections.reverse(blocks);
+			}
+			for (Block block : blocks) {
+				if (!block.intersects(query)) {
+					continue;
+				}
+				List<ClientApplicationEvent> events = segment.read(block);
+				if (!query.isAscending()) {
+					Collections.reverse(events);
+				}
+				for (ClientApplicationEvent event : events) {
+					if (query.matches(event)) {
+						result.add(event);
+						if (result.size() >= query.getLimit()) {
+							return result;
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the event and waits until it was written to disk together with the events stored
+	 * concurrently.
+	 *
+	 * @throws IllegalStateException if interrupted while waiting, as the event may not be written.
+	 */
+	@Override
+	public void store(ClientApplicationEvent event) {
+		PendingEvent pending = new PendingEvent(event);
+		synchronized (queue) {
+			Assert.state(running, "Journal is closed");
+			event.setSequence(nextSequence++);
+			queue.add(pending);
+		}
+		try {
+			pending.written.await();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while journaling event " + event, ex);
+		}
+	}
+
+	private void writeLoop() {
+		List<PendingEvent> batch = new ArrayList<>(MAX_BATCH);
+		while (running || !queue.isEmpty()) {
+			try {
+				PendingEvent first = queue.poll(100L, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, MAX_BATCH - 1);
+				write(batch);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				for (PendingEvent pending : batch) {
+					pending.written.countDown();
+				}
+				batch.clear();
+			}
+		}
+	}
+
+	private void write(List<PendingEvent> batch) {
+		Segment tail = getTail();
+		for (PendingEvent pending : batch) {
+			ClientApplicationEvent event = pending.event;
+			try {
+				byte[] payload = EventCodec.encode(event);
+				if (!tail.fits(payload)) {
+					tail.force();
+					tail.writeIndex();
+					tail = roll(event.getSequence());
+				}
+				tail.append(event.getSequence(), event.getTimestamp(), payload);
+			} catch (IOException | RuntimeException ex) {
+				LOGGER.warn("Couldn't journal event {}", event, ex);
+			}
+		}
+		tail.force();
+	}
+
+	private Segment roll(long baseSequence) throws IOException {
+		Segment segment = createSegment(baseSequence);
+		segments.add(segment);
+		while (maxSegments > 0 && segments.size() > maxSegments) {
+			Segment oldest = segments.remove(0);
+			oldest.delete();
+		}
+		return segment;
+	}
+
+	private Segment createSegment(long baseSequence) throws IOException {
+		File file = new File(directory, String.format("%020d", baseSequence) + SEGMENT_SUFFIX);
+		return new Segment(baseSequence, file, segmentSize);
+	}
+
+	private Segment getTail() {
+		return segments.get(segments.size() - 1);
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		synchronized (queue) {
+			running = false;
+		}
+		writer.join();
+	}
+
+	private static final class PendingEvent {
+		private final ClientApplicationEvent event;
+		private final CountDownLatch written = new CountDownLatch(1);
+
+		private PendingEvent(ClientApplicationEvent event) {
+			this.event = event;
+		}
+	}
+
+	/**
+	 * Range of consecutive events in a segment.
+	 */
+	private static final class Block {
+		private final long firstSequence;
+		private final long lastSequence;
+		private final int position;
+		private final int count;
+		private final long minTimestamp;
+		private final long maxTimestamp;
+
+		private Block(long firstSequence, long lastSequence, int position, int count,
+				long minTimestamp, long maxTimestamp) {
+			this.firstSequence = firstSequence;
+			this.lastSequence = lastSequence;
+			this.position = position;
+			this.count = count;
+			this.minTimestamp = minTimestamp;
+			this.maxTimestamp = maxTimestamp;
+		}
+
+		private Block add(long sequence, long timestamp) {
+			return new Block(firstSequence, sequence, position, count + 1, Math.min(minTimestamp,
+					timestamp), Math.max(maxTimestamp, timestamp));
+		}
+
+		private boolean intersects(JournalQuery query) {
+			return lastSequence > query.getAfter() && firstSequence < query.getBefore()
+					&& maxTimestamp >= query.getFrom() && minTimestamp < query.getTo();
+		}
+	}
+
+	/**
+	 * A single memory-mapped file. Each event is written as length, CRC32 and the encoded event.
+	 */
+	private static final class Segment {
+		private final long baseSequence;
+		private final File file;
+		private final MappedByteBuffer buffer;
+		private final ByteBuffer writeBuffer;
+		private final List<Block> blocks = new ArrayList<>();
+		private long lastSequence;
+
+		private Segment(long baseSequence, File file, int size) throws IOException {
+			this.baseSequence = baseSequence;
+			this.file = file;
+			this.lastSequence = baseSequence - 1;
+			// the mapping stays valid after the file is closed
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(size);
+				this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			}
+			this.writeBuffer = buffer.duplicate();
+		}
+
+		private boolean fits(byte[] payload) {
+			return writeBuffer.remaining() >= HEADER_SIZE + payload.length;
+		}
+
+		private synchronized void append(long sequence, long timestamp, byte[] payload) {
+			int position = writeBuffer.position();
+			writeBuffer.putInt(payload.length);
+			writeBuffer.putInt(checksum(payload));
+			writeBuffer.put(payload);
+			addToIndex(sequence, timestamp, position);
+		}
+
+		private void addToIndex(long sequence, long timestamp, int position) {
+			Block last = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+			if (last == null || last.count >= BLOCK_SIZE) {
+				blocks.add(new Block(sequence, sequence, position, 1, timestamp, timestamp));
+			} else {
+				blocks.set(blocks.size() - 1, last.add(sequence, timestamp));
+			}
+			lastSequence = sequence;
+		}
+
+		private synchronized Block[] getBlocks() {
+			return blocks.toArray(new Block[blocks.size()]);
+		}
+
+		private synchronized long getLastSequence() {
+			return lastSequence;
+		}
+
+		private List<ClientApplicationEvent> read(Block block) {
+			ByteBuffer reader = buffer.duplicate();
+			reader.position(block.position);
+			List<ClientApplicationEvent> events = new ArrayList<>(block.count);
+			for (int i = 0; i < block.count; i++) {
+				byte[] payload = new byte[reader.getInt()];
+				reader.getInt();
+				reader.get(payload);
+				try {
+					events.add(EventCodec.decode(payload));
+				} catch (IOException ex) {
+					LOGGER.warn("Couldn't read event from {}", file, ex);
+				}
+			}
+			return events;
+		}
+
+		/**
+		 * Rebuilds the index by reading all events up to the first incomplete or corrupt one,
+		 * which is where the next event is written.
+		 */
+		private synchronized void scan() {
+			blocks.clear();
+			ByteBuffer reader = buffer.duplicate();
+			while (reader.remaining() >= HEADER_SIZE) {
+				int position = reader.position();
+				int length = reader.getInt();
+				int checksum = reader.getInt();
+				if (length < 16 || length > reader.remaining()) {
+					reader.position(position);
+					break;
+				}
+				byte[] payload = new byte[length];
+				reader.get(payload);
+				if (checksum != checksum(payload)) {
+					LOGGER.warn("Truncating journal {} at corrupt event at {}", file, position);
+					reader.position(position);
+					break;
+				}
+				ByteBuffer header = ByteBuffer.wrap(payload);
+				addToIndex(header.getLong(), header.getLong(), position);
+			}
+			writeBuffer.position(reader.position());
+		}
+
+		private synchronized void writeIndex() throws IOException {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(getIndexFile())))) {
+				out.writeLong(lastSequence);
+				out.writeInt(writeBuffer.position());
+				out.writeInt(blocks.size());
+				for (Block block : blocks) {
+					out.writeLong(block.firstSequence);
+					out.writeLong(block.lastSequence);
+					out.writeInt(block.position);
+					out.writeInt(block.count);
+					out.writeLong(block.minTimestamp);
+					out.writeLong(block.maxTimestamp);
+				}
+			}
+		}
+
+		/**
+		 * @return false if there is no readable index.
+		 */
+		private synchronized boolean readIndex() {
+			File indexFile = getIndexFile();
+			if (!indexFile.exists()) {
+				return false;
+			}
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(indexFile)))) {
+				lastSequence = in.readLong();
+				writeBuffer.position(in.readInt());
+				int count = in.readInt();
+				for (int i = 0; i < count; i++) {
+					blocks.add(new Block(in.readLong(), in.readLong(), in.readInt(), in.readInt(),
+							in.readLong(), in.readLong()));
+				}
+				return true;
+			} catch (IOException | IllegalArgumentException ex) {
+				LOGGER.warn("Couldn't read journal index {}, scanning the segment", indexFile, ex);
+				blocks.clear();
+				lastSequence = baseSequence - 1;
+				return false;
+			}
+		}
+
+		private File getIndexFile() {
+			String name = file.getName();
+			return new File(file.getParentFile(), name.substring(0, name.length()
+					- SEGMENT_SUFFIX.length())
+					+ INDEX_SUFFIX);
+		}
+
+		private void force() {
+			buffer.force();
+		}
+
+		private void delete() {
+			if (!file.delete() || !getIndexFile().delete()) {
+				LOGGER.warn("Couldn't delete journal {}", file);
+			}
+		}
+
+		private static int checksum(byte[] payload) {
+			CRC32 crc = new CRC32();
+			crc.update(payload, 0, payload.length);
+			return (int) crc.getValue();
+		}
+	}
+
+}
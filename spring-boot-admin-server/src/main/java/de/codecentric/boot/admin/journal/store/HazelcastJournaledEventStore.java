@@ -17,35 +17,125 @@ package de.codecentric.boot.admin.journal.store;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
-import com.hazelcast.core.IList;
+import org.springframework.util.Assert;
+
+import com.hazelcast.core.IAtomicLong;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.AbstractEntryProcessor;
+import com.hazelcast.query.Predicates;
+import com.hazelcast.query.QueryConstants;
 
 import de.codecentric.boot.admin.event.ClientApplicationEvent;
+import de.codecentric.boot.admin.journal.JournalQuery;
 
 /**
- * Event-Store backed by a Hazelcast-list.
+ * Event-Store backed by a Hazelcast-map keyed by the events' sequence, so the events are spread
+ * over all partitions. The sequences are drawn from a cluster-wide atomic long. The number of
+ * events is bounded: the events falling out of the capacity are removed in batches. Each removal
+ * takes all events below the capacity, so a batch left behind by a failing member is removed with
+ * the next one. Reads fetch pages of consecutive sequences at once.
  *
  * @author Johannes Edmeier
  */
 public class HazelcastJournaledEventStore implements JournaledEventStore {
+	private static final int PAGE_SIZE = 100;
 
-	private IList<ClientApplicationEvent> store;
+	private final IMap<Long, ClientApplicationEvent> store;
+	private final IAtomicLong sequence;
+	private final int capacity;
+	private final int evictionBatch;
 
-	public HazelcastJournaledEventStore(IList<ClientApplicationEvent> store) {
+	/**
+	 * @param store the map to store the events in.
+	 * @param sequence the source of the sequences.
+	 * @param capacity the maximum number of events kept.
+	 */
+	public HazelcastJournaledEventStore(IMap<Long, ClientApplicationEvent> store,
+			IAtomicLong sequence, int capacity) {
+		Assert.isTrue(capacity > 0, "capacity must be greater than 0");
 		this.store = store;
+		this.sequence = sequence;
+		this.capacity = capacity;
+		this.evictionBatch = Math.max(capacity / 10, 1);
 	}
 
 	@Override
 	public Collection<ClientApplicationEvent> findAll() {
-		ArrayList<ClientApplicationEvent> list = new ArrayList<>(store);
-		Collections.reverse(list);
-		return list;
+		return find(JournalQuery.create().build());
+	}
+
+	@Override
+	public Collection<ClientApplicationEvent> find(JournalQuery query) {
+		long next = sequence.get();
+		long newest = Math.min(next - 1, query.getBefore() - 1);
+		long oldest = Math.max(Math.max(next - capacity, 0L), query.getAfter() + 1);
+
+		List<ClientApplicationEvent> result = new ArrayList<>();
+		if (newest < oldest) {
+			return result;
+		}
+		for (long page = 0; page <= (newest - oldest) / PAGE_SIZE; page++) {
+			long first;
+			long last;
+			if (query.isAscending()) {
+				first = oldest + page * PAGE_SIZE;
+				last = Math.min(first + PAGE_SIZE - 1, newest);
+			} else {
+				last = newest - page * PAGE_SIZE;
+				first = Math.max(last - PAGE_SIZE + 1, oldest);
+			}
+
+			Map<Long, ClientApplicationEvent> events = store.getAll(range(first, last));
+			for (long i = 0; i <= last - first; i++) {
+				ClientApplicationEvent event = events.get(query.isAscending() ? first + i : last
+						- i);
+				if (event != null && query.matches(event)) {
+					result.add(event);
+					if (result.size() >= query.getLimit()) {
+						return result;
+					}
+				}
+			}
+		}
+		return result;
 	}
 
 	@Override
 	public void store(ClientApplicationEvent event) {
-		store.add(event);
+		long seq = sequence.getAndIncrement();
+		event.setSequence(seq);
+		store.set(seq, event);
+
+		// the node drawing the sequence at the batch boundary evicts all events up to it
+		long evictUpTo = seq - capacity;
+		if (evictUpTo >= 0 && (evictUpTo + 1) % evictionBatch == 0) {
+			store.executeOnEntries(new Remove(),
+					Predicates.lessThan(QueryConstants.KEY_ATTRIBUTE_NAME, evictUpTo + 1));
+		}
+	}
+
+	private static Set<Long> range(long first, long last) {
+		Set<Long> keys = new HashSet<>();
+		for (long key = Math.max(first, 0L); key <= last; key++) {
+			keys.add(key);
+		}
+		return keys;
+	}
+
+	private static class Remove extends AbstractEntryProcessor<Long, ClientApplicationEvent> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Object process(Entry<Long, ClientApplicationEvent> entry) {
+			entry.setValue(null);
+			return null;
+		}
 	}
 
 }
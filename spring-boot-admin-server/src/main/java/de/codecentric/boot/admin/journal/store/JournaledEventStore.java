@@ -18,6 +18,7 @@ package de.codecentric.boot.admin.journal.store;
 import java.util.Collection;
 
 import de.codecentric.boot.admin.event.ClientApplicationEvent;
+import de.codecentric.boot.admin.journal.JournalQuery;
 
 /**
  * Interface for storing JournaledEvent
@@ -28,5 +29,16 @@ public interface JournaledEventStore {
 
 	Collection<ClientApplicationEvent> findAll();
 
+	/**
+	 * @param query describes the events to return.
+	 * @return the matching events, ordered as requested by the query.
+	 */
+	Collection<ClientApplicationEvent> find(JournalQuery query);
+
+	/**
+	 * Stores the event and assigns its sequence.
+	 *
+	 * @param event the event to store.
+	 */
 	void store(ClientApplicationEvent event);
 }
@@ -15,33 +15,384 @@
  */
 package de.codecentric.boot.admin.journal.store;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.util.Assert;
 
 import de.codecentric.boot.admin.event.ClientApplicationEvent;
+import de.codecentric.boot.admin.journal.JournalQuery;
 
 /**
- * Simple, non-persistent Store for JournaledEvent
+ * Simple, non-persistent Store for JournaledEvent. The events are kept in a bounded ring buffer,
+ * which is written without locking. When the buffer is full the oldest events are overwritten.
+ * Besides the overall number of events the number of events per application and the age of the
+ * events can be limited. The events' sequences address the slots in the buffer, so queries
+ * starting at a sequence don't need to scan the buffer; the sequences of each application's
+ * events are indexed separately. Overwritten and expired events are dropped from the index on
+ * write, and the index of an application without retained events is removed.
  *
  * @author Johannes Stelzer
  */
 public class SimpleJournaledEventStore implements JournaledEventStore {
 
-	private final List<ClientApplicationEvent> store = Collections
-			.synchronizedList(new ArrayList<ClientApplicationEvent>(1000));
+	private final AtomicReferenceArray<Entry> buffer;
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicLong unexpired = new AtomicLong();
+	private final ConcurrentMap<String, ApplicationIndex> applications = new ConcurrentHashMap<>();
+	private final int maxEvents;
+	private final int maxEventsPerApplication;
+	private final long maxAge;
+
+	public SimpleJournaledEventStore() {
+		this(10_000, 0, 0L);
+	}
+
+	/**
+	 * @param maxEvents the maximum number of events kept.
+	 * @param maxEventsPerApplication the maximum number of events kept per application; 0 for no
+	 *            limit.
+	 * @param maxAge the time in ms the events are kept; 0 for no limit.
+	 */
+	public SimpleJournaledEventStore(int maxEvents, int maxEventsPerApplication, long maxAge) {
+		Assert.isTrue(maxEvents > 0, "maxEvents must be greater than 0");
+		this.buffer = new AtomicReferenceArray<>(maxEvents);
+		this.maxEvents = maxEvents;
+		this.maxEventsPerApplication = maxEventsPerApplication;
+		this.maxAge = maxAge;
+	}
 
+	/**
+	 * Returns a view of the retained events, newest first. The view doesn't copy the events; it
+	 * reflects the events present while iterating.
+	 */
 	@Override
 	public Collection<ClientApplicationEvent> findAll() {
-		ArrayList<ClientApplicationEvent> list = new ArrayList<>(store);
-		Collections.reverse(list);
-		return list;
+		return new AbstractCollection<ClientApplicationEvent>() {
+			@Override
+			public Iterator<ClientApplicationEvent> iterator() {
+				return new NewestFirstIterator(sequence.get() - 1);
+			}
+
+			@Override
+			public int size() {
+				int size = 0;
+				for (Iterator<ClientApplicationEvent> i = iterator(); i.hasNext(); i.next()) {
+					size++;
+				}
+				return size;
+			}
+		};
+	}
+
+	@Override
+	public Collection<ClientApplicationEvent> find(JournalQuery query) {
+		List<ClientApplicationEvent> result = new ArrayList<>(Math.min(query.getLimit(), 256));
+		long newest = Math.min(sequence.get() - 1, query.getBefore() - 1);
+		long oldest = Math.max(Math.max(sequence.get() - maxEvents, 0L), query.getAfter() + 1);
+		long minTimestamp = Math.max(query.getFrom(), getMinTimestamp());
+
+		if (query.getApplicationId() != null) {
+			ApplicationIndex index = applications.get(query.getApplicationId());
+			long[] seqs = index != null ? index.toArray() : new long[0];
+			int first = lowerBound(seqs, oldest);
+			int last = lowerBound(seqs, newest + 1) - 1;
+			for (int i = 0; i <= last - first; i++) {
+				long seq = query.isAscending() ? seqs[first + i] : seqs[last - i];
+				if (!collect(result, seq, query, minTimestamp)) {
+					break;
+				}
+			}
+		} else {
+			for (long i = 0; i <= newest - oldest; i++) {
+				long seq = query.isAscending() ? oldest + i : newest - i;
+				if (!collect(result, seq, query, minTimestamp)) {
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the event with the given sequence to the result, if it matches the query.
+	 *
+	 * @return false if no further events need to be looked at.
+	 */
+	private boolean collect(List<ClientApplicationEvent> result, long seq, JournalQuery query,
+			long minTimestamp) {
+		Entry entry = buffer.get(slot(seq));
+		if (entry == null || entry.seq != seq) {
+			return true;
+		}
+		long timestamp = entry.event.getTimestamp();
+		if (query.isAscending() ? timestamp >= query.getTo() : timestamp < minTimestamp) {
+			return false;
+		}
+		if (timestamp >= minTimestamp && query.matches(entry.event)) {
+			result.add(entry.event);
+		}
+		return result.size() < query.getLimit();
+	}
+
+	private static int lowerBound(long[] seqs, long seq) {
+		int index = Arrays.binarySearch(seqs, seq);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	private long getMinTimestamp() {
+		return maxAge > 0L ? System.currentTimeMillis() - maxAge : Long.MIN_VALUE;
 	}
 
 	@Override
 	public void store(ClientApplicationEvent event) {
-		store.add(event);
+		long seq = sequence.getAndIncrement();
+		event.setSequence(seq);
+		Entry entry = new Entry(seq, event);
+		int slot = slot(seq);
+		Entry current;
+		do {
+			current = buffer.get(slot);
+			// a writer which lapped us already stored a newer event in this slot
+			if (current != null && current.seq > seq) {
+				return;
+			}
+		} while (!buffer.compareAndSet(slot, current, entry));
+
+		if (current != null) {
+			release(current);
+		}
+		String id = getApplicationId(event);
+		if (id != null) {
+			long evicted;
+			do {
+				evicted = getApplicationIndex(id).add(seq, seq - maxEvents + 1,
+						maxEventsPerApplication);
+			} while (evicted == ApplicationIndex.RETIRED);
+			if (evicted >= 0L) {
+				evict(evicted);
+			}
+		}
+		if (maxAge > 0L) {
+			evictExpired(seq);
+		}
+	}
+
+	/**
+	 * Evicts the events older than maxAge, starting at the oldest event not known to be expired.
+	 * The walk stops at the first event which is recent enough.
+	 */
+	private void evictExpired(long newest) {
+		long minTimestamp = getMinTimestamp();
+		long start = unexpired.get();
+		long seq = Math.max(start, newest - maxEvents + 1);
+		for (; seq < newest; seq++) {
+			Entry entry = buffer.get(slot(seq));
+			if (entry == null || entry.seq != seq) {
+				continue;
+			}
+			if (entry.event.getTimestamp() >= minTimestamp) {
+				break;
+			}
+			if (buffer.compareAndSet(slot(seq), entry, null)) {
+				release(entry);
+			}
+		}
+		while (start < seq && !unexpired.compareAndSet(start, seq)) {
+			start = unexpired.get();
+		}
+	}
+
+	/**
+	 * Drops the given entry, which is no longer in the buffer, and all older ones from its
+	 * application's index. Removes the index if no events are left.
+	 */
+	private void release(Entry entry) {
+		String id = getApplicationId(entry.event);
+		if (id == null) {
+			return;
+		}
+		ApplicationIndex index = applications.get(id);
+		if (index != null && index.trim(entry.seq + 1)) {
+			applications.remove(id, index);
+		}
+	}
+
+	private static String getApplicationId(ClientApplicationEvent event) {
+		return event.getApplication() != null ? event.getApplication().getId() : null;
+	}
+
+	private ApplicationIndex getApplicationIndex(String id) {
+		ApplicationIndex index = applications.get(id);
+		if (index == null) {
+			ApplicationIndex newIndex = new ApplicationIndex();
+			index = applications.putIfAbsent(id, newIndex);
+			if (index == null) {
+				index = newIndex;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Evicts the event exceeding the per-application limit; it's already dropped from the index.
+	 */
+	private void evict(long seq) {
+		int slot = slot(seq);
+		Entry current = buffer.get(slot);
+		if (current != null && current.seq == seq) {
+			buffer.compareAndSet(slot, current, null);
+		}
+	}
+
+	private int slot(long seq) {
+		return (int) (seq % maxEvents);
+	}
+
+	private static final class Entry {
+		private final long seq;
+		private final ClientApplicationEvent event;
+
+		private Entry(long seq, ClientApplicationEvent event) {
+			this.seq = seq;
+			this.event = event;
+		}
+	}
+
+	/**
+	 * Remembers the sequences of the retained events of a single application, oldest first.
+	 */
+	private static final class ApplicationIndex {
+		private static final long RETIRED = -2L;
+		private long[] seqs = new long[16];
+		private int head = 0;
+		private int size = 0;
+		private boolean retired = false;
+
+		/**
+		 * @param seq the sequence to add.
+		 * @param oldest the oldest sequence still present in the buffer.
+		 * @param limit the maximum number of sequences; 0 for no limit.
+		 * @return the sequence of the event which exceeds the limit, -1, or RETIRED if this index
+		 *         was removed and the sequence has to be added to a new one.
+		 */
+		private synchronized long add(long seq, long oldest, int limit) {
+			if (retired) {
+				return RETIRED;
+			}
+			dropOlder(oldest);
+			long evicted = -1L;
+			if (limit > 0 && size >= limit) {
+				evicted = seqs[head];
+				head = (head + 1) % seqs.length;
+				size--;
+			}
+			if (size == seqs.length) {
+				seqs = toArray(seqs.length * 2);
+				head = 0;
+			}
+			seqs[(head + size) % seqs.length] = seq;
+			size++;
+			return evicted;
+		}
+
+		/**
+		 * @param oldest the oldest sequence to keep.
+		 * @return true if the index is empty and must not be used anymore.
+		 */
+		private synchronized boolean trim(long oldest) {
+			dropOlder(oldest);
+			if (size == 0) {
+				retired = true;
+			}
+			return retired;
+		}
+
+		private void dropOlder(long oldest) {
+			while (size > 0 && seqs[head] < oldest) {
+				head = (head + 1) % seqs.length;
+				size--;
+			}
+		}
+
+		private synchronized long[] toArray() {
+			return toArray(size);
+		}
+
+		private long[] toArray(int length) {
+			long[] result = new long[length];
+			for (int i = 0; i < size; i++) {
+				result[i] = seqs[(head + i) % seqs.length];
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Walks the ring buffer backwards, skipping evicted events and stopping at the first event
+	 * which is overwritten or too old.
+	 */
+	private final class NewestFirstIterator implements Iterator<ClientApplicationEvent> {
+		private final long oldest;
+		private final long minTimestamp;
+		private long seq;
+		private ClientApplicationEvent next;
+
+		private NewestFirstIterator(long newest) {
+			this.seq = newest;
+			this.oldest = Math.max(newest - maxEvents + 1, 0L);
+			this.minTimestamp = getMinTimestamp();
+			advance();
+		}
+
+		private void advance() {
+			next = null;
+			while (next == null && seq >= oldest) {
+				Entry entry = buffer.get(slot(seq));
+				if (entry != null && entry.seq > seq) {
+					// overwritten while iterating, all older events are gone as well
+					seq = -1L;
+					return;
+				}
+				if (entry != null && entry.seq == seq) {
+					if (entry.event.getTimestamp() < minTimestamp) {
+						seq = -1L;
+						return;
+					}
+					next = entry.event;
+				}
+				seq--;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public ClientApplicationEvent next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			ClientApplicationEvent result = next;
+			advance();
+			return result;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
 	}
 
 }
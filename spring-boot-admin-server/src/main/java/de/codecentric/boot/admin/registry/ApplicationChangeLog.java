@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.util.Assert;
+
+import de.codecentric.boot.admin.event.ClientApplicationEvent;
+import de.codecentric.boot.admin.model.Application;
+
+/**
+ * Remembers which applications were changed at which version of the registry, so clients can ask
+ * for the changes since the version they have seen. The log is fed by the ClientApplicationEvents
+ * and keeps the latest change of a bounded number of applications.
+ * <p>
+ * If the registry was modified without an event being seen here - e.g. by another node of a
+ * cluster - or the changes since the requested version were evicted, all applications are
+ * returned instead.
+ * <p>
+ * The versions are handed out as tokens prefixed with a random epoch of this change log. So after
+ * a restart the versions seen before aren't mistaken for the versions of the new registry.
+ */
+public class ApplicationChangeLog {
+
+	private final ApplicationRegistry registry;
+	private final int capacity;
+	private final Map<String, Long> changes = new LinkedHashMap<>();
+	private final String epoch = Long.toHexString(new Random().nextLong() & Long.MAX_VALUE);
+	private long lastVersion;
+	private long incompleteUpTo;
+
+	/**
+	 * @param registry the registry to track.
+	 * @param capacity the maximum number of changes kept.
+	 */
+	public ApplicationChangeLog(ApplicationRegistry registry, int capacity) {
+		Assert.isTrue(capacity > 0, "capacity must be greater than 0");
+		this.registry = registry;
+		this.capacity = capacity;
+		this.lastVersion = registry.getVersion();
+		this.incompleteUpTo = lastVersion;
+	}
+
+	@EventListener
+	public void onClientApplicationEvent(ClientApplicationEvent event) {
+		if (event.getApplication() != null) {
+			recordChange(event.getApplication().getId());
+		}
+	}
+
+	private synchronized void recordChange(String id) {
+		// the events are published after the registry was modified
+		long version = registry.getVersion();
+		if (version > lastVersion + 1) {
+			// more modifications than events; unknown which applications they affected
+			incompleteUpTo = version - 1;
+		}
+		lastVersion = Math.max(lastVersion, version);
+		changes.remove(id);
+		changes.put(id, version);
+		if (changes.size() > capacity) {
+			Iterator<Long> eldest = changes.values().iterator();
+			incompleteUpTo = Math.max(incompleteUpTo, eldest.next());
+			eldest.remove();
+		}
+	}
+
+	/**
+	 * @param since the version token of the registry the client has seen, may be
+	 *            <code>null</code>.
+	 * @return the applications changed since then.
+	 */
+	public ApplicationChanges getChangesSince(String since) {
+		long current = registry.getVersion();
+		Long version = parseToken(since);
+		List<String> changed = version != null ? getChangedIds(version, current) : null;
+		if (changed == null) {
+			return new ApplicationChanges(toToken(current), true, registry.getApplications(),
+					Collections.<String> emptyList());
+		}
+
+		List<Application> applications = new ArrayList<>();
+		List<String> removed = new ArrayList<>();
+		for (String id : changed) {
+			Application application = registry.getApplication(id);
+			if (application != null) {
+				applications.add(application);
+			} else {
+				removed.add(id);
+			}
+		}
+		return new ApplicationChanges(toToken(current), false, applications, removed);
+	}
+
+	private String toToken(long version) {
+		return epoch + "-" + version;
+	}
+
+	/**
+	 * @return the version contained in the token, or <code>null</code> if the token wasn't handed
+	 *         out by this change log.
+	 */
+	private Long parseToken(String token) {
+		if (token == null || !token.startsWith(epoch + "-")) {
+			return null;
+		}
+		try {
+			return Long.valueOf(token.substring(epoch.length() + 1));
+		} catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the ids changed since the version, or <code>null</code> if they aren't known.
+	 */
+	private synchronized List<String> getChangedIds(long since, long current) {
+		if (since < incompleteUpTo || since > current || current > lastVersion) {
+			return null;
+		}
+		List<String> changed = new ArrayList<>();
+		for (Entry<String, Long> change : changes.entrySet()) {
+			if (change.getValue() > since) {
+				changed.add(change.getKey());
+			}
+		}
+		return changed;
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry;
+
+import java.util.Collection;
+
+import de.codecentric.boot.admin.model.Application;
+
+/**
+ * The applications changed since a version of the registry. If the changes since that version
+ * aren't known anymore, all applications are contained and <code>full</code> is set.
+ */
+public class ApplicationChanges {
+	private final String version;
+	private final boolean full;
+	private final Collection<Application> applications;
+	private final Collection<String> removed;
+
+	public ApplicationChanges(String version, boolean full, Collection<Application> applications,
+			Collection<String> removed) {
+		this.version = version;
+		this.full = full;
+		this.applications = applications;
+		this.removed = removed;
+	}
+
+	/**
+	 * @return the version token to ask for the next changes with.
+	 */
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return true if all applications are contained, not just the changed ones.
+	 */
+	public boolean isFull() {
+		return full;
+	}
+
+	/**
+	 * @return the added and updated applications.
+	 */
+	public Collection<Application> getApplications() {
+		return applications;
+	}
+
+	/**
+	 * @return the ids of the removed applications.
+	 */
+	public Collection<String> getRemoved() {
+		return removed;
+	}
+
+}
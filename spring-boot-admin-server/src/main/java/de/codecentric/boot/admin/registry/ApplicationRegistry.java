@@ -17,13 +17,24 @@ package de.codecentric.boot.admin.registry;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 import de.codecentric.boot.admin.event.ClientApplicationDeregisteredEvent;
@@ -44,6 +55,17 @@ public class ApplicationRegistry implements ApplicationEventPublisherAware {
 	private final ApplicationIdGenerator generator;
 	private ApplicationEventPublisher publisher;
 
+	/**
+	 * The ids of the applications as registered, to spot refreshes of unchanged registrations.
+	 */
+	private final ConcurrentMap<Application, String> registeredIds = new ConcurrentHashMap<>();
+
+	/**
+	 * The registration last seen per id, to drop it from {@link #registeredIds} when it changes or
+	 * the application is deregistered.
+	 */
+	private final ConcurrentMap<String, Application> registrations = new ConcurrentHashMap<>();
+
 	public ApplicationRegistry(ApplicationStore store, ApplicationIdGenerator generator) {
 		this.store = store;
 		this.generator = generator;
@@ -56,19 +78,12 @@ public class ApplicationRegistry implements ApplicationEventPublisherAware {
 	 * @return the registered application.
 	 */
 	public Application register(Application application) {
-		Assert.notNull(application, "Application must not be null");
-		Assert.hasText(application.getName(), "Name must not be null");
-		Assert.hasText(application.getHealthUrl(), "Health-URL must not be null");
-		Assert.isTrue(checkUrl(application.getHealthUrl()), "Health-URL is not valid");
-		Assert.isTrue(
-				StringUtils.isEmpty(application.getManagementUrl())
-						|| checkUrl(application.getManagementUrl()), "URL is not valid");
-		Assert.isTrue(
-				StringUtils.isEmpty(application.getServiceUrl())
-						|| checkUrl(application.getServiceUrl()), "URL is not valid");
+		Application refreshed = refresh(application);
+		if (refreshed != null) {
+			return refreshed;
+		}
 
-		String applicationId = generator.generateId(application);
-		Assert.notNull(applicationId, "ID must not be null");
+		String applicationId = validateAndGenerateId(application);
 
 		StatusInfo existingStatusInfo = getExistingStatusInfo(applicationId);
 
@@ -87,9 +102,124 @@ public class ApplicationRegistry implements ApplicationEventPublisherAware {
 				LOGGER.warn("Application {} replaced by Application {}", registering, replaced);
 			}
 		}
+		remember(application, applicationId);
 		return registering;
 	}
 
+	/**
+	 * Clients re-register periodically without changes. These refreshes are answered with the
+	 * stored application, without validating, generating the id and writing to the store again.
+	 *
+	 * @return the stored application, or <code>null</code> if the registration has to be done.
+	 */
+	private Application refresh(Application application) {
+		if (application == null) {
+			return null;
+		}
+		String applicationId = registeredIds.get(application);
+		if (applicationId == null) {
+			return null;
+		}
+		Application current = store.find(applicationId);
+		if (current != null && ObjectUtils.nullSafeEquals(current.getName(), application.getName())
+				&& ObjectUtils.nullSafeEquals(current.getHealthUrl(), application.getHealthUrl())
+				&& ObjectUtils.nullSafeEquals(current.getManagementUrl(),
+						application.getManagementUrl())
+				&& ObjectUtils.nullSafeEquals(current.getServiceUrl(), application.getServiceUrl())) {
+			LOGGER.debug("Application {} refreshed", current);
+			return current;
+		}
+		return null;
+	}
+
+	/**
+	 * Register a batch of applications at once. Invalid applications are skipped and reported in
+	 * the results, the valid ones are stored together.
+	 *
+	 * @param applications applications to be registered.
+	 * @return the result for each application, in the given order.
+	 */
+	public List<BatchResult> registerAll(List<Application> applications) {
+		Map<Application, String> generatedIds = new HashMap<>();
+		List<String> applicationIds = new ArrayList<>(applications.size());
+		List<String> errors = new ArrayList<>(applications.size());
+		Map<String, Application> registering = new LinkedHashMap<>();
+		for (Application application : applications) {
+			try {
+				String applicationId = validateAndGenerateId(application);
+				registering.put(applicationId, Application.create(application).withId(applicationId)
+						.withStatusInfo(null).build());
+				generatedIds.put(application, applicationId);
+				applicationIds.add(applicationId);
+				errors.add(null);
+			} catch (IllegalArgumentException ex) {
+				applicationIds.add(null);
+				errors.add(ex.getMessage());
+			}
+		}
+
+		for (Application existing : store.find(registering.keySet())) {
+			registering.put(existing.getId(), Application.create(registering.get(existing.getId()))
+					.withStatusInfo(existing.getStatusInfo()).build());
+		}
+
+		Set<String> replacedIds = new HashSet<>();
+		for (Application replaced : store.saveAll(registering.values())) {
+			replacedIds.add(replaced.getId());
+		}
+		for (Application registered : registering.values()) {
+			if (replacedIds.contains(registered.getId())) {
+				LOGGER.debug("Application {} refreshed", registered);
+			} else {
+				LOGGER.info("New Application {} registered ", registered);
+				publisher.publishEvent(new ClientApplicationRegisteredEvent(registered));
+			}
+		}
+		for (Entry<Application, String> entry : generatedIds.entrySet()) {
+			remember(entry.getKey(), entry.getValue());
+		}
+
+		List<BatchResult> results = new ArrayList<>(applications.size());
+		for (int i = 0; i < applicationIds.size(); i++) {
+			String applicationId = applicationIds.get(i);
+			results.add(applicationId != null ? BatchResult.success(registering.get(applicationId))
+					: BatchResult.failure(null, errors.get(i)));
+		}
+		return results;
+	}
+
+	private void remember(Application application, String applicationId) {
+		Application previous = registrations.put(applicationId, application);
+		if (previous != null && !previous.equals(application)) {
+			registeredIds.remove(previous, applicationId);
+		}
+		registeredIds.put(application, applicationId);
+	}
+
+	private void forget(String applicationId) {
+		Application previous = registrations.remove(applicationId);
+		if (previous != null) {
+			registeredIds.remove(previous, applicationId);
+		}
+	}
+
+	private String validateAndGenerateId(Application application) {
+		Assert.notNull(application, "Application must not be null");
+		Assert.hasText(application.getName(), "Name must not be null");
+		Assert.hasText(application.getHealthUrl(), "Health-URL must not be null");
+		Assert.isTrue(checkUrl(application.getHealthUrl()), "Health-URL is not valid");
+		Assert.isTrue(
+				StringUtils.isEmpty(application.getManagementUrl())
+						|| checkUrl(application.getManagementUrl()), "URL is not valid");
+		Assert.isTrue(
+				StringUtils.isEmpty(application.getServiceUrl())
+						|| checkUrl(application.getServiceUrl()), "URL is not valid");
+
+		String applicationId = generator.generateId(application);
+		Assert.notNull(applicationId, "ID must not be null");
+		return applicationId;
+	}
+
 	private StatusInfo getExistingStatusInfo(String applicationId) {
 		Application existing = getApplication(applicationId);
 		if (existing != null) {
@@ -132,6 +262,23 @@ public class ApplicationRegistry implements ApplicationEventPublisherAware {
 		return store.findByName(name);
 	}
 
+	/**
+	 * @return the version of the registered applications, which changes with each modification.
+	 */
+	public long getVersion() {
+		return store.getVersion();
+	}
+
+	/**
+	 * Get a list of all registered applications with the given status.
+	 *
+	 * @param status the status to search for.
+	 * @return List of applications with the given status.
+	 */
+	public Collection<Application> getApplicationsByStatus(String status) {
+		return store.findByStatus(status);
+	}
+
 	/**
 	 * Get a specific application inside the registry.
 	 *
@@ -150,6 +297,7 @@ public class ApplicationRegistry implements ApplicationEventPublisherAware {
 	 */
 	public Application deregister(String id) {
 		Application app = store.delete(id);
+		forget(id);
 		if (app != null) {
 			LOGGER.info("Application {} unregistered ", app);
 			publisher.publishEvent(new ClientApplicationDeregisteredEvent(app));
@@ -157,6 +305,34 @@ public class ApplicationRegistry implements ApplicationEventPublisherAware {
 		return app;
 	}
 
+	/**
+	 * Remove a batch of applications from registry at once.
+	 *
+	 * @param ids the applications ids to unregister
+	 * @return the result for each id, in the given order; ids not registered are reported as
+	 *         failures.
+	 */
+	public List<BatchResult> deregisterAll(List<String> ids) {
+		Map<String, Application> removed = new HashMap<>();
+		Collection<Application> deleted = store.delete(ids);
+		for (String id : ids) {
+			forget(id);
+		}
+		for (Application app : deleted) {
+			removed.put(app.getId(), app);
+			LOGGER.info("Application {} unregistered ", app);
+			publisher.publishEvent(new ClientApplicationDeregisteredEvent(app));
+		}
+
+		List<BatchResult> results = new ArrayList<>(ids.size());
+		for (String id : ids) {
+			Application app = removed.get(id);
+			results.add(app != null ? BatchResult.success(app) : BatchResult.failure(id,
+					"Application not found"));
+		}
+		return results;
+	}
+
 	@Override
 	public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
 		publisher = applicationEventPublisher;
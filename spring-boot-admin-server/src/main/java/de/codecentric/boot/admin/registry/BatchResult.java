@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry;
+
+import de.codecentric.boot.admin.model.Application;
+
+/**
+ * The outcome for a single item of a batch registration or deregistration. Either the application
+ * or the error is set.
+ */
+public class BatchResult {
+	private final String id;
+	private final Application application;
+	private final String error;
+
+	private BatchResult(String id, Application application, String error) {
+		this.id = id;
+		this.application = application;
+		this.error = error;
+	}
+
+	public static BatchResult success(Application application) {
+		return new BatchResult(application.getId(), application, null);
+	}
+
+	public static BatchResult failure(String id, String error) {
+		return new BatchResult(id, null, error);
+	}
+
+	/**
+	 * @return the id of the application, or <code>null</code> if none could be assigned.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the registered or deregistered application, or <code>null</code> on failure.
+	 */
+	public Application getApplication() {
+		return application;
+	}
+
+	/**
+	 * @return the reason of the failure, or <code>null</code> on success.
+	 */
+	public String getError() {
+		return error;
+	}
+
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+}
@@ -28,15 +28,22 @@ public class HashingApplicationUrlIdGenerator implements ApplicationIdGenerator
 	private static final char[] HEX_CHARS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9',
 			'a', 'b', 'c', 'd', 'e', 'f' };
 
+	private static final ThreadLocal<MessageDigest> DIGEST = new ThreadLocal<MessageDigest>() {
+		@Override
+		protected MessageDigest initialValue() {
+			try {
+				return MessageDigest.getInstance("SHA-1");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	};
+
 	@Override
 	public String generateId(Application a) {
-		try {
-			MessageDigest digest = MessageDigest.getInstance("SHA-1");
-			byte[] bytes = digest.digest(a.getHealthUrl().getBytes(StandardCharsets.UTF_8));
-			return new String(encodeHex(bytes, 0, 8));
-		} catch (NoSuchAlgorithmException e) {
-			throw new IllegalStateException(e);
-		}
+		// digest() resets the digest, so it can be reused by the thread
+		byte[] bytes = DIGEST.get().digest(a.getHealthUrl().getBytes(StandardCharsets.UTF_8));
+		return new String(encodeHex(bytes, 0, 8));
 	}
 
 	private char[] encodeHex(byte[] bytes, int offset, int length) {
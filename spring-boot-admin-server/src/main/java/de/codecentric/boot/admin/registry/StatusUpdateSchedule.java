@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Holds the point in time at which the status of each application is due to be updated. The
+ * deadlines are kept in a priority queue, so polling the due applications only costs O(due) and
+ * not O(all applications).
+ */
+public class StatusUpdateSchedule {
+
+	private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	/**
+	 * Schedules the next update for the application, replacing any previously scheduled one.
+	 *
+	 * @param id the applications id
+	 * @param deadline time in ms when the application is due
+	 */
+	public synchronized void schedule(String id, long deadline) {
+		cancel(id);
+		Entry entry = new Entry(id, deadline);
+		entries.put(id, entry);
+		queue.add(entry);
+	}
+
+	/**
+	 * Schedules the next update for the application, if there isn't one scheduled already.
+	 *
+	 * @param id the applications id
+	 * @param deadline time in ms when the application is due
+	 * @return true if the update was scheduled.
+	 */
+	public synchronized boolean scheduleIfAbsent(String id, long deadline) {
+		if (entries.containsKey(id)) {
+			return false;
+		}
+		schedule(id, deadline);
+		return true;
+	}
+
+	/**
+	 * @param id the applications id
+	 * @return true if an update was scheduled for the application.
+	 */
+	public synchronized boolean cancel(String id) {
+		Entry entry = entries.remove(id);
+		if (entry != null) {
+			entry.cancelled = true;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes and returns all applications which are due. They have to be rescheduled after being
+	 * updated.
+	 *
+	 * @param now the current time in ms
+	 * @return the ids of all due applications, the most overdue first.
+	 */
+	public synchronized List<String> pollDue(long now) {
+		List<String> due = new ArrayList<>();
+		while (!queue.isEmpty() && queue.peek().deadline <= now) {
+			Entry entry = queue.poll();
+			if (!entry.cancelled) {
+				entries.remove(entry.id);
+				due.add(entry.id);
+			}
+		}
+		return due;
+	}
+
+	/**
+	 * @param id the applications id
+	 * @return the time in ms the application is due, or <code>null</code> if not scheduled.
+	 */
+	public synchronized Long getDeadline(String id) {
+		Entry entry = entries.get(id);
+		return entry != null ? entry.deadline : null;
+	}
+
+	/**
+	 * @return the ids of all scheduled applications.
+	 */
+	public synchronized Set<String> getScheduled() {
+		return new HashSet<>(entries.keySet());
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private static final class Entry implements Comparable<Entry> {
+		private final String id;
+		private final long deadline;
+		private boolean cancelled = false;
+
+		private Entry(String id, long deadline) {
+			this.id = id;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			return deadline < other.deadline ? -1 : (deadline == other.deadline ? 0 : 1);
+		}
+	}
+}
@@ -15,13 +15,37 @@
  */
 package de.codecentric.boot.admin.registry;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.ListenableFutureTask;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
@@ -29,82 +53,693 @@ import de.codecentric.boot.admin.event.ClientApplicationStatusChangedEvent;
 import de.codecentric.boot.admin.model.Application;
 import de.codecentric.boot.admin.model.StatusInfo;
 import de.codecentric.boot.admin.registry.store.ApplicationStore;
+import de.codecentric.boot.admin.registry.store.StatusUpdate;
 
 /**
  * The StatusUpdater is responsible for updatig the status of all or a single application querying
- * the healthUrl.
+ * the healthUrl. Each application is checked when its own deadline in the
+ * {@link StatusUpdateSchedule} is reached; the health checks are run concurrently, limited by the
+ * configured parallelism. The health endpoints are either queried with a blocking
+ * {@link RestTemplate} or a non-blocking {@link AsyncRestTemplate}.
+ * <p>
+ * In adaptive mode the interval until the next update is chosen per application: Applications
+ * being UP for several consecutive checks back off towards the maximum status lifetime, while new,
+ * not UP or flapping applications are checked with the minimum status lifetime.
+ * <p>
+ * OFFLINE applications are guarded by a circuit breaker, unless probing is disabled: Instead of a
+ * full health check a HEAD request with a short timeout is sent first, with the usual interval,
+ * and only if any response arrives the health endpoint is queried. An application becoming
+ * reachable again is queried at once, so a recovery is reported promptly. While the application
+ * stays reachable but the health endpoint fails, the health endpoint is queried with exponential
+ * backoff, up to the maximum offline backoff.
+ * <p>
+ * If the store is shared by a cluster, only the applications local to this member are updated
+ * periodically (see {@link ApplicationStore#isLocal(String)}).
  *
  * @author Johannes Stelzer
  */
-public class StatusUpdater implements ApplicationEventPublisherAware {
+public class StatusUpdater implements ApplicationEventPublisherAware, DisposableBean {
 	private static final Logger LOGGER = LoggerFactory.getLogger(StatusUpdater.class);
 
 	private final ApplicationStore store;
 	private final RestTemplate restTemplate;
+	private final AsyncRestTemplate asyncRestTemplate;
+	private final ExecutorService executor;
+	private final Set<String> inFlight = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final StatusUpdateSchedule schedule = new StatusUpdateSchedule();
+	private final ConcurrentMap<String, Stability> stabilities = new ConcurrentHashMap<>();
+	private final Random random = new Random();
 	private ApplicationEventPublisher publisher;
+	private Semaphore permits;
+	private volatile long nextReconcile = 0L;
 
 	/**
-	 * Lifetime of status in ms. The status won't be updated as long the last status isn't expired.
+	 * Lifetime of status in ms. Each application's status is updated when its last status expired.
 	 */
 	private long statusLifetime = 30_000L;
 
+	/**
+	 * Choose the status lifetime per application depending on the stability of its status.
+	 */
+	private boolean adaptive = false;
+
+	/**
+	 * Status lifetime in ms for new, not UP or flapping applications in adaptive mode.
+	 */
+	private long minStatusLifetime = 10_000L;
+
+	/**
+	 * Status lifetime in ms applications being UP for a long time back off to in adaptive mode.
+	 */
+	private long maxStatusLifetime = 300_000L;
+
+	/**
+	 * Maximum time in ms between two queries of the health endpoint of an OFFLINE application
+	 * whose host is reachable.
+	 */
+	private long maxOfflineBackoff = 300_000L;
+
+	/**
+	 * Probe OFFLINE applications with a HEAD request before querying their health endpoint.
+	 */
+	private boolean probeOffline = true;
+
+	/**
+	 * Timeout in ms for probing OFFLINE applications.
+	 */
+	private int probeTimeout = 1_000;
+
+	/**
+	 * Maximum number of status checks running concurrently.
+	 */
+	private int parallelism = 10;
+
+	/**
+	 * Time in ms one update of the due applications may wait for free check slots. Checks which
+	 * couldn't be started within this time are deferred to the next update.
+	 */
+	private long sweepTimeout = 1_000L;
+
+	private volatile long lastSweepDuration;
+	private volatile int lastSweepChecks;
+	private volatile int lastSweepDeferred;
+
+	/**
+	 * Creates a StatusUpdater querying the health endpoints with blocking requests, each occupying
+	 * a thread while the check is running.
+	 *
+	 * @param restTemplate the template used to query the health endpoints.
+	 * @param store the store to update.
+	 */
 	public StatusUpdater(RestTemplate restTemplate, ApplicationStore store) {
+		this(restTemplate, null, store);
+	}
+
+	/**
+	 * Creates a StatusUpdater querying the health endpoints with non-blocking requests. Threads
+	 * are only needed to process the responses.
+	 *
+	 * @param asyncRestTemplate the template used to query the health endpoints.
+	 * @param store the store to update.
+	 */
+	public StatusUpdater(AsyncRestTemplate asyncRestTemplate, ApplicationStore store) {
+		this(null, asyncRestTemplate, store);
+	}
+
+	private StatusUpdater(RestTemplate restTemplate, AsyncRestTemplate asyncRestTemplate,
+			ApplicationStore store) {
 		this.restTemplate = restTemplate;
+		this.asyncRestTemplate = asyncRestTemplate;
 		this.store = store;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("status-updater-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newCachedThreadPool(threadFactory);
+		this.permits = new Semaphore(parallelism);
 	}
 
 	public void updateStatusForAllApplications() {
-		long now = System.currentTimeMillis();
-		for (Application application : store.findAll()) {
-			if (now - statusLifetime > application.getStatusInfo().getTimestamp()) {
-				updateStatus(application);
+		long start = System.currentTimeMillis();
+		if (start >= nextReconcile) {
+			reconcileSchedule(start);
+			nextReconcile = start + statusLifetime;
+		}
+
+		long deadline = start + sweepTimeout;
+		Semaphore sweepPermits = this.permits;
+		List<String> due = schedule.pollDue(start);
+
+		int started = 0;
+		int index = 0;
+		try {
+			for (; index < due.size(); index++) {
+				Application application = store.find(due.get(index));
+				if (application == null) {
+					continue;
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if (!sweepPermits.tryAcquire(Math.max(remaining, 0L), TimeUnit.MILLISECONDS)) {
+					break;
+				}
+				submitUpdate(application, sweepPermits);
+				started++;
 			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (String id : due.subList(index, due.size())) {
+			schedule.schedule(id, start);
+		}
+
+		lastSweepDuration = System.currentTimeMillis() - start;
+		lastSweepChecks = started;
+		lastSweepDeferred = due.size() - index;
+		LOGGER.debug(
+				"Status update of {} applications took {}ms ({} deferred, {} still in flight)",
+				lastSweepChecks, lastSweepDuration, lastSweepDeferred, inFlight.size());
+	}
+
+	/**
+	 * Adds all local applications missing in the schedule (e.g. registered at another cluster
+	 * member) and removes the ones not present in the store or not local anymore. Overdue
+	 * applications are spread over the status lifetime to avoid a burst of checks.
+	 */
+	private void reconcileSchedule(long now) {
+		Set<String> removed = schedule.getScheduled();
+		for (Application application : store.findAllLocal()) {
+			removed.remove(application.getId());
+			if (!inFlight.contains(application.getId())) {
+				Long lastChecked = getLastChecked(application.getId());
+				long expires = (lastChecked != null ? lastChecked : application.getStatusInfo()
+						.getTimestamp()) + getInterval(application.getId());
+				schedule.scheduleIfAbsent(application.getId(), expires > now ? expires : now
+						+ jitter());
+			}
+		}
+		for (String id : removed) {
+			schedule.cancel(id);
+			stabilities.remove(id);
+		}
+	}
+
+	private long jitter() {
+		return statusLifetime > 0 ? (long) (random.nextDouble() * statusLifetime) : 0L;
+	}
+
+	private void submitUpdate(final Application application, final Semaphore sweepPermits) {
+		inFlight.add(application.getId());
+		ListenableFuture<StatusInfo> status;
+		try {
+			status = probeOffline && isCircuitOpen(application.getId())
+					? probeAndQueryStatus(application) : queryStatusAsync(application);
+		} catch (RuntimeException ex) {
+			// e.g. the executor rejected the check while shutting down
+			LOGGER.warn("Couldn't update status for {}", application, ex);
+			complete(application, sweepPermits);
+			return;
 		}
+		status.addCallback(new ListenableFutureCallback<StatusInfo>() {
+			@Override
+			public void onSuccess(final StatusInfo status) {
+				// don't apply the status on the http client's threads, as the listeners may block
+				try {
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								applyStatus(application, status);
+							} catch (RuntimeException ex) {
+								LOGGER.warn("Couldn't update status for {}", application, ex);
+							} finally {
+								complete(application, sweepPermits);
+							}
+						}
+					});
+				} catch (RejectedExecutionException ex) {
+					LOGGER.warn("Couldn't update status for {}", application, ex);
+					complete(application, sweepPermits);
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable ex) {
+				LOGGER.warn("Couldn't update status for {}", application, ex);
+				complete(application, sweepPermits);
+			}
+		});
 	}
 
+	private void complete(Application application, Semaphore sweepPermits) {
+		// applications reassigned meanwhile are dropped with the next reconciliation
+		schedule.schedule(application.getId(),
+				System.currentTimeMillis() + getInterval(application.getId()));
+		inFlight.remove(application.getId());
+		sweepPermits.release();
+	}
+
+	/**
+	 * Removes the application from the update schedule.
+	 *
+	 * @param id the applications id.
+	 */
+	public void cancelUpdates(String id) {
+		schedule.cancel(id);
+		stabilities.remove(id);
+	}
+
+	/**
+	 * Reconciles the schedule with the store on the next update, e.g. because the applications
+	 * were reassigned between the members of a cluster.
+	 */
+	public void reconcileOnNextUpdate() {
+		nextReconcile = 0L;
+	}
+
+	/**
+	 * Updates the status of the application at once. Further updates are scheduled if the
+	 * application is local to this node.
+	 *
+	 * @param application the application to update.
+	 */
 	public void updateStatus(Application application) {
+		applyStatus(application, queryStatus(application));
+		if (store.isLocal(application.getId())) {
+			schedule.schedule(application.getId(),
+					System.currentTimeMillis() + getInterval(application.getId()));
+		}
+	}
+
+	private void applyStatus(Application application, StatusInfo newStatus) {
 		StatusInfo oldStatus = application.getStatusInfo();
-		StatusInfo newStatus = queryStatus(application);
+		recordStatus(application.getId(), oldStatus, newStatus);
 
-		Application newState = Application.create(application).withStatusInfo(newStatus).build();
-		store.save(newState);
+		// only write to the store if the status changed, the time of the check is kept locally
+		if (newStatus.equals(oldStatus)) {
+			return;
+		}
 
-		if (!newStatus.equals(oldStatus)) {
-			publisher.publishEvent(new ClientApplicationStatusChangedEvent(newState, oldStatus,
-					newStatus));
+		// the store reports the status actually replaced, which may differ from the one read
+		StatusUpdate update = store.updateStatus(application.getId(), newStatus);
+		if (update != null && update.isChanged()) {
+			publisher.publishEvent(new ClientApplicationStatusChangedEvent(update.getApplication(),
+					update.getFrom(), update.getTo()));
 		}
 	}
 
 	private StatusInfo queryStatus(Application application) {
+		if (restTemplate == null) {
+			try {
+				return queryStatusAsync(application).get();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return StatusInfo.ofOffline();
+			} catch (ExecutionException ex) {
+				throw new IllegalStateException(ex.getCause());
+			}
+		}
+
 		LOGGER.trace("Updating status for {}", application);
 
 		try {
 			@SuppressWarnings("unchecked")
 			ResponseEntity<Map<String, String>> response = restTemplate.getForEntity(
 					application.getHealthUrl(), (Class<Map<String, String>>) (Class<?>) Map.class);
-			LOGGER.debug("/health for {} responded with {}", application, response);
+			return convertStatus(application, response);
+		} catch (RestClientException ex) {
+			LOGGER.warn("Couldn't retrieve status for {}", application, ex);
+			return StatusInfo.ofOffline();
+		}
+	}
 
-			if (response.hasBody() && response.getBody().get("status") != null) {
-				return StatusInfo.valueOf(response.getBody().get("status"));
-			} else if (response.getStatusCode().is2xxSuccessful()) {
-				return StatusInfo.ofUp();
-			} else {
-				return StatusInfo.ofDown();
-			}
+	private ListenableFuture<StatusInfo> queryStatusAsync(final Application application) {
+		if (asyncRestTemplate == null) {
+			ListenableFutureTask<StatusInfo> task = new ListenableFutureTask<>(
+					new Callable<StatusInfo>() {
+						@Override
+						public StatusInfo call() {
+							return queryStatus(application);
+						}
+					});
+			executor.execute(task);
+			return task;
+		}
+
+		LOGGER.trace("Updating status for {}", application);
+
+		final SettableListenableFuture<StatusInfo> status = new SettableListenableFuture<>();
+		try {
+			@SuppressWarnings("unchecked")
+			ListenableFuture<ResponseEntity<Map<String, String>>> response = asyncRestTemplate
+					.getForEntity(application.getHealthUrl(),
+							(Class<Map<String, String>>) (Class<?>) Map.class);
+			response.addCallback(new ListenableFutureCallback<ResponseEntity<Map<String, String>>>() {
+				@Override
+				public void onSuccess(ResponseEntity<Map<String, String>> result) {
+					status.set(convertStatus(application, result));
+				}
 
+				@Override
+				public void onFailure(Throwable ex) {
+					LOGGER.warn("Couldn't retrieve status for {}", application, ex);
+					status.set(StatusInfo.ofOffline());
+				}
+			});
 		} catch (RestClientException ex) {
 			LOGGER.warn("Couldn't retrieve status for {}", application, ex);
-			return StatusInfo.ofOffline();
+			status.set(StatusInfo.ofOffline());
+		}
+		return status;
+	}
+
+	/**
+	 * Probes the health endpoint and only queries it if the probe succeeded. This keeps checks of
+	 * dead hosts from waiting for the full timeouts of the http client.
+	 */
+	private ListenableFuture<StatusInfo> probeAndQueryStatus(final Application application) {
+		final SettableListenableFuture<StatusInfo> status = new SettableListenableFuture<>();
+		final Stability stability = getStability(application.getId());
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (!stability.probed(probe(application))) {
+					status.set(StatusInfo.ofOffline());
+					return;
+				}
+				try {
+					queryStatusAsync(application).addCallback(
+							new ListenableFutureCallback<StatusInfo>() {
+								@Override
+								public void onSuccess(StatusInfo result) {
+									stability.requested(result);
+									status.set(result);
+								}
+
+								@Override
+								public void onFailure(Throwable ex) {
+									status.setException(ex);
+								}
+							});
+				} catch (RuntimeException ex) {
+					status.setException(ex);
+				}
+			}
+		});
+		return status;
+	}
+
+	/**
+	 * Sends a HEAD request to the health endpoint, using the same http client - and so the same
+	 * proxy and TLS settings - as the health queries.
+	 *
+	 * @return true if any response arrived within the probe timeout.
+	 */
+	private boolean probe(final Application application) {
+		LOGGER.trace("Probing {}", application);
+		ListenableFuture<HttpHeaders> response;
+		try {
+			if (asyncRestTemplate != null) {
+				response = asyncRestTemplate.headForHeaders(application.getHealthUrl());
+			} else {
+				ListenableFutureTask<HttpHeaders> task = new ListenableFutureTask<>(
+						new Callable<HttpHeaders>() {
+							@Override
+							public HttpHeaders call() {
+								return restTemplate.headForHeaders(application.getHealthUrl());
+							}
+						});
+				executor.execute(task);
+				response = task;
+			}
+		} catch (RestClientException ex) {
+			LOGGER.debug("Probe for {} failed", application, ex);
+			return false;
+		}
+
+		try {
+			response.get(probeTimeout, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (ExecutionException ex) {
+			// an error status is a response, too
+			if (ex.getCause() instanceof HttpStatusCodeException) {
+				return true;
+			}
+			LOGGER.debug("Probe for {} failed", application, ex.getCause());
+			return false;
+		} catch (TimeoutException ex) {
+			response.cancel(true);
+			LOGGER.debug("Probe for {} timed out", application);
+			return false;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private StatusInfo convertStatus(Application application,
+			ResponseEntity<Map<String, String>> response) {
+		LOGGER.debug("/health for {} responded with {}", application, response);
+
+		if (response.hasBody() && response.getBody().get("status") != null) {
+			return StatusInfo.valueOf(response.getBody().get("status"));
+		} else if (response.getStatusCode().is2xxSuccessful()) {
+			return StatusInfo.ofUp();
+		} else {
+			return StatusInfo.ofDown();
+		}
+	}
+
+	private void recordStatus(String id, StatusInfo oldStatus, StatusInfo newStatus) {
+		getStability(id).record(newStatus, !newStatus.equals(oldStatus));
+	}
+
+	private Stability getStability(String id) {
+		Stability stability = stabilities.get(id);
+		if (stability == null) {
+			stability = new Stability();
+			Stability existing = stabilities.putIfAbsent(id, stability);
+			if (existing != null) {
+				stability = existing;
+			}
+		}
+		return stability;
+	}
+
+	/**
+	 * @param id the applications id.
+	 * @return the time in ms the status of the application was checked the last time by this
+	 *         StatusUpdater, or <code>null</code> if it wasn't checked yet.
+	 */
+	public Long getLastChecked(String id) {
+		Stability stability = stabilities.get(id);
+		return stability != null ? stability.getLastChecked() : null;
+	}
+
+	/**
+	 * Returns the time in ms between two status updates for the given application. Unless in
+	 * adaptive mode this is always the status lifetime.
+	 *
+	 * @param id the applications id.
+	 * @return the interval in ms.
+	 */
+	public long getInterval(String id) {
+		Stability stability = stabilities.get(id);
+		if (stability == null) {
+			return adaptive ? minStatusLifetime : statusLifetime;
 		}
+		return stability.getInterval();
+	}
+
+	/**
+	 * @param id the applications id.
+	 * @return true if the last check found the application OFFLINE, so it is probed before being
+	 *         checked again (if probing is enabled).
+	 */
+	public boolean isCircuitOpen(String id) {
+		Stability stability = stabilities.get(id);
+		return stability != null && stability.isOffline();
+	}
+
+	/**
+	 * @param id the applications id.
+	 * @return the time in ms the next status update for the application is due, or
+	 *         <code>null</code> if none is scheduled.
+	 */
+	public Long getNextUpdate(String id) {
+		return schedule.getDeadline(id);
 	}
 
 	public void setStatusLifetime(long statusLifetime) {
 		this.statusLifetime = statusLifetime;
 	}
 
+	public void setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	public void setMinStatusLifetime(long minStatusLifetime) {
+		this.minStatusLifetime = minStatusLifetime;
+	}
+
+	public void setMaxStatusLifetime(long maxStatusLifetime) {
+		this.maxStatusLifetime = maxStatusLifetime;
+	}
+
+	public void setMaxOfflineBackoff(long maxOfflineBackoff) {
+		this.maxOfflineBackoff = maxOfflineBackoff;
+	}
+
+	public void setProbeOffline(boolean probeOffline) {
+		this.probeOffline = probeOffline;
+	}
+
+	public void setProbeTimeout(int probeTimeout) {
+		Assert.isTrue(probeTimeout > 0, "probeTimeout must be greater than 0");
+		this.probeTimeout = probeTimeout;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+		this.permits = new Semaphore(parallelism);
+	}
+
+	public void setSweepTimeout(long sweepTimeout) {
+		this.sweepTimeout = sweepTimeout;
+	}
+
+	/**
+	 * @return the duration of the last update of the due applications in ms.
+	 */
+	public long getLastSweepDuration() {
+		return lastSweepDuration;
+	}
+
+	/**
+	 * @return the number of status checks started by the last update of the due applications.
+	 */
+	public int getLastSweepChecks() {
+		return lastSweepChecks;
+	}
+
+	/**
+	 * @return the number of due checks the last update couldn't start within the sweep timeout.
+	 */
+	public int getLastSweepDeferred() {
+		return lastSweepDeferred;
+	}
+
+	/**
+	 * @return the number of status checks currently running.
+	 */
+	public int getInFlightChecks() {
+		return inFlight.size();
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
 	@Override
 	public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
 		this.publisher = publisher;
 	}
 
+	/**
+	 * Tracks how stable the status of a single application is. Each consecutive check with an
+	 * unchanged UP status doubles the interval; a status change resets it. Frequent changes mark
+	 * the application as flapping until enough stable checks have passed. For OFFLINE applications
+	 * the probes and the queries of the health endpoint after them are tracked: Each consecutive
+	 * failed query doubles the number of probes until the next query.
+	 */
+	private final class Stability {
+		private String status;
+		private int stableChecks;
+		private int recentChanges;
+		private int offlineChecks;
+		private long lastChecked;
+		private boolean reachable;
+		private int failedRequests;
+		private int skippedProbes;
+
+		private synchronized void record(StatusInfo statusInfo, boolean changed) {
+			status = statusInfo.getStatus();
+			lastChecked = statusInfo.getTimestamp();
+			offlineChecks = "OFFLINE".equals(status) ? offlineChecks + 1 : 0;
+			if (offlineChecks == 0) {
+				reachable = true;
+				failedRequests = 0;
+				skippedProbes = 0;
+			}
+			if (changed) {
+				stableChecks = 0;
+				recentChanges++;
+			} else {
+				recentChanges = Math.max(recentChanges - 1, 0);
+				stableChecks = recentChanges > 1 ? 0 : stableChecks + 1;
+			}
+		}
+
+		private synchronized long getLastChecked() {
+			return lastChecked;
+		}
+
+		private synchronized boolean isOffline() {
+			return offlineChecks > 0;
+		}
+
+		private synchronized long getInterval() {
+			return adaptive ? getAdaptiveInterval() : statusLifetime;
+		}
+
+		/**
+		 * @param success whether the probe got a response.
+		 * @return true if the health endpoint is to be queried.
+		 */
+		private synchronized boolean probed(boolean success) {
+			if (!success) {
+				reachable = false;
+				failedRequests = 0;
+				return false;
+			}
+			if (!reachable) {
+				reachable = true;
+				return true;
+			}
+			if (skippedProbes < getProbesBetweenRequests()) {
+				skippedProbes++;
+				return false;
+			}
+			return true;
+		}
+
+		private synchronized void requested(StatusInfo result) {
+			skippedProbes = 0;
+			failedRequests = "OFFLINE".equals(result.getStatus()) ? failedRequests + 1 : 0;
+		}
+
+		private long getProbesBetweenRequests() {
+			if (failedRequests <= 1) {
+				return 0L;
+			}
+			long probes = (1L << Math.min(failedRequests - 1, 30)) - 1;
+			long interval = getInterval();
+			if (interval > 0) {
+				probes = Math.min(probes, Math.max(maxOfflineBackoff / interval - 1, 0L));
+			}
+			return probes;
+		}
+
+		private long getAdaptiveInterval() {
+			if (!"UP".equals(status) || stableChecks == 0) {
+				return minStatusLifetime;
+			}
+			long interval = Math.max(statusLifetime, minStatusLifetime);
+			for (int i = 1; i < stableChecks && interval < maxStatusLifetime; i++) {
+				interval *= 2;
+			}
+			return Math.min(interval, maxStatusLifetime);
+		}
+	}
+
 }
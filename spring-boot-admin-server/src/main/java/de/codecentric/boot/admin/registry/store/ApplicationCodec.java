@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
+
+/**
+ * Compact binary encoding of Applications and StatusInfos, writing just the fields instead of the
+ * class descriptors of the Java serialization.
+ */
+public final class ApplicationCodec {
+
+	private ApplicationCodec() {
+	}
+
+	public static void writeApplication(DataOutput out, Application application)
+			throws IOException {
+		out.writeBoolean(application != null);
+		if (application != null) {
+			writeString(out, application.getId());
+			writeString(out, application.getName());
+			writeString(out, application.getHealthUrl());
+			writeString(out, application.getManagementUrl());
+			writeString(out, application.getServiceUrl());
+			writeStatusInfo(out, application.getStatusInfo());
+		}
+	}
+
+	public static Application readApplication(DataInput in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		String id = readString(in);
+		return Application.create(readString(in)).withId(id).withHealthUrl(readString(in))
+				.withManagementUrl(readString(in)).withServiceUrl(readString(in))
+				.withStatusInfo(readStatusInfo(in)).build();
+	}
+
+	public static void writeStatusInfo(DataOutput out, StatusInfo statusInfo)
+			throws IOException {
+		out.writeBoolean(statusInfo != null);
+		if (statusInfo != null) {
+			out.writeUTF(statusInfo.getStatus());
+			out.writeLong(statusInfo.getTimestamp());
+		}
+	}
+
+	public static StatusInfo readStatusInfo(DataInput in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		return StatusInfo.valueOf(in.readUTF(), in.readLong());
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import java.io.IOException;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+import de.codecentric.boot.admin.model.Application;
+
+/**
+ * Hazelcast-Serializer for Applications, writing the fields with the {@link ApplicationCodec}.
+ */
+public class ApplicationSerializer implements StreamSerializer<Application> {
+	public static final int TYPE_ID = 6501;
+
+	@Override
+	public int getTypeId() {
+		return TYPE_ID;
+	}
+
+	@Override
+	public void write(ObjectDataOutput out, Application application) throws IOException {
+		ApplicationCodec.writeApplication(out, application);
+	}
+
+	@Override
+	public Application read(ObjectDataInput in) throws IOException {
+		return ApplicationCodec.readApplication(in);
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+}
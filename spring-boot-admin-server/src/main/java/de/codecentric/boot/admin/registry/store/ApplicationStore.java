@@ -18,6 +18,7 @@ package de.codecentric.boot.admin.registry.store;
 import java.util.Collection;
 
 import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
 
 /**
  * Responsible for storing applications.
@@ -33,26 +34,80 @@ public interface ApplicationStore {
 	 */
 	Application save(Application app);
 
+	/**
+	 * Inserts the Applications into the store at once, replacing those already present.
+	 *
+	 * @param apps Applications to store
+	 * @return the Applications associated previously with the applications ids.
+	 */
+	Collection<Application> saveAll(Collection<Application> apps);
+
+	/**
+	 * Replaces the StatusInfo of a stored Application atomically. Applications not present in the
+	 * store are not added; Applications already having the status are left untouched.
+	 *
+	 * @param id the applications id
+	 * @param statusInfo the new StatusInfo
+	 * @return the updated Application with the previous and the new StatusInfo, or
+	 *         <code>null</code> if not present in the store.
+	 */
+	StatusUpdate updateStatus(String id, StatusInfo statusInfo);
+
 	/**
 	 * @return all Applications in the store;
 	 */
 	Collection<Application> findAll();
 
+	/**
+	 * @return the Applications whose status is to be updated by this node; all Applications unless
+	 *         the store is shared by a cluster.
+	 */
+	Collection<Application> findAllLocal();
+
+	/**
+	 * @param id the applications id
+	 * @return whether the status of the Application is to be updated by this node.
+	 */
+	boolean isLocal(String id);
+
 	/**
 	 * @param id the applications id
 	 * @return the Application with the specified id;
 	 */
 	Application find(String id);
 
+	/**
+	 * @param ids the applications ids
+	 * @return the Applications present in the store with one of the specified ids;
+	 */
+	Collection<Application> find(Collection<String> ids);
+
 	/**
 	 * @param name the applications name
 	 * @return all Applications with the specified name;
 	 */
 	Collection<Application> findByName(String name);
 
+	/**
+	 * @param status the status of the applications
+	 * @return all Applications with the specified status;
+	 */
+	Collection<Application> findByStatus(String status);
+
 	/**
 	 * @param id id of the Application to be removed
 	 * @return the Application associated previosly with the applications id.
 	 */
 	Application delete(String id);
+
+	/**
+	 * @param ids ids of the Applications to be removed
+	 * @return the Applications removed from the store.
+	 */
+	Collection<Application> delete(Collection<String> ids);
+
+	/**
+	 * @return the version of the store's content, which is incremented after each modification.
+	 */
+	long getVersion();
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import de.codecentric.boot.admin.model.Application;
+
+/**
+ * Secondary index from the value of an attribute to the ids of the applications having it. The
+ * index must be updated with each change of an application; the caller has to serialize the
+ * updates per application id.
+ */
+class AttributeIndex {
+
+	/**
+	 * The attribute of an application to index.
+	 */
+	interface Attribute {
+		String getValue(Application application);
+	}
+
+	static final Attribute NAME = new Attribute() {
+		@Override
+		public String getValue(Application application) {
+			return application.getName();
+		}
+	};
+
+	static final Attribute STATUS = new Attribute() {
+		@Override
+		public String getValue(Application application) {
+			return application.getStatusInfo().getStatus();
+		}
+	};
+
+	private final Attribute attribute;
+	private final ConcurrentMap<String, Set<String>> ids = new ConcurrentHashMap<>();
+
+	AttributeIndex(Attribute attribute) {
+		this.attribute = attribute;
+	}
+
+	/**
+	 * @param previous the application replaced, or <code>null</code>.
+	 * @param current the application replacing it, or <code>null</code> if it was removed.
+	 */
+	void update(Application previous, Application current) {
+		String previousValue = previous != null ? attribute.getValue(previous) : null;
+		String currentValue = current != null ? attribute.getValue(current) : null;
+		if (previousValue != null && !previousValue.equals(currentValue)) {
+			getIds(previousValue).remove(previous.getId());
+		}
+		if (currentValue != null && !currentValue.equals(previousValue)) {
+			getIds(currentValue).add(current.getId());
+		}
+	}
+
+	/**
+	 * @return the ids of the applications with the given value; may contain ids of applications
+	 *         changed concurrently.
+	 */
+	Set<String> get(String value) {
+		Set<String> result = ids.get(value);
+		return result != null ? result : Collections.<String> emptySet();
+	}
+
+	/**
+	 * Empty sets are kept, as there are few distinct values and dropping them would race with
+	 * concurrent additions.
+	 */
+	private Set<String> getIds(String value) {
+		Set<String> set = ids.get(value);
+		if (set == null) {
+			Set<String> newSet = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+			set = ids.putIfAbsent(value, newSet);
+			if (set == null) {
+				set = newSet;
+			}
+		}
+		return set;
+	}
+
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.MapEvent;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapClearedListener;
+import com.hazelcast.map.listener.MapEvictedListener;
+
+import de.codecentric.boot.admin.model.Application;
+
+/**
+ * Local copy of the Hazelcast-maps of registrations and statuses, so reads are served from local
+ * memory. The applications are kept composed of both, so reads don't need to compose them. The
+ * copy is kept current by the maps' entry events and by the writes of this member. As events may
+ * be delayed or lost, the whole maps are fetched again when the copy is older than the maximum
+ * staleness. Entries changed by events or writes while the maps are fetched are newer than the
+ * fetched ones and are kept.
+ * <p>
+ * The version of the copy is local to this member. It starts at a random value, so versions from
+ * different members don't match.
+ */
+public class HazelcastApplicationReplica implements EntryAddedListener<String, Application>,
+		EntryUpdatedListener<String, Application>, EntryRemovedListener<String, Application>,
+		EntryEvictedListener<String, Application>, MapClearedListener, MapEvictedListener {
+
+	private final IMap<String, Application> map;
+	private final IMap<String, StatusRecord> statusMap;
+	private final long maxStaleness;
+	private final ConcurrentMap<String, Application> applications = new ConcurrentHashMap<>();
+	private final Map<String, StatusRecord> statuses = new HashMap<>();
+	/**
+	 * The ids changed while the maps are fetched; <code>null</code> if no sync is running.
+	 */
+	private Set<String> changedDuringSync;
+	private final ReentrantLock syncLock = new ReentrantLock();
+	private final AtomicLong version = new AtomicLong(
+			(new Random().nextLong() & Long.MAX_VALUE) >>> 1);
+	private final AtomicLong updates = new AtomicLong();
+	private final AtomicLong syncs = new AtomicLong();
+	private final AtomicLong corrections = new AtomicLong();
+	private volatile long lastSync;
+
+	/**
+	 * @param map the map of registrations to copy.
+	 * @param statusMap the map of statuses to copy.
+	 * @param maxStaleness the time in ms after which the whole maps are fetched again.
+	 */
+	public HazelcastApplicationReplica(IMap<String, Application> map,
+			IMap<String, StatusRecord> statusMap, long maxStaleness) {
+		this.map = map;
+		this.statusMap = statusMap;
+		this.maxStaleness = maxStaleness;
+		map.addEntryListener(this, true);
+		statusMap.addEntryListener(new StatusListener(), true);
+		sync();
+	}
+
+	public Application get(String id) {
+		syncIfStale();
+		return applications.get(id);
+	}
+
+	public Collection<Application> values() {
+		syncIfStale();
+		return applications.values();
+	}
+
+	/**
+	 * Applies a write of this member, before its entry events arrive. As in the maps the status is
+	 * taken from the application only if none is known yet.
+	 */
+	public synchronized void put(Application application) {
+		changed(application.getId());
+		if (!statuses.containsKey(application.getId())) {
+			statuses.put(application.getId(), StatusRecord.of(application.getStatusInfo()));
+		}
+		putRegistration(application);
+	}
+
+	/**
+	 * Applies a status update of this member, before its entry event arrives.
+	 */
+	public synchronized void putStatus(String id, StatusRecord status) {
+		changed(id);
+		statuses.put(id, status);
+		Application current = applications.get(id);
+		if (current != null) {
+			apply(id, HazelcastApplicationStore.compose(current, status));
+		}
+	}
+
+	/**
+	 * Applies a removal of this member, before its entry events arrive.
+	 */
+	public synchronized void remove(String id) {
+		changed(id);
+		statuses.remove(id);
+		if (applications.remove(id) != null) {
+			version.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the version of the copy, which is incremented after each modification.
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+
+	@Override
+	public void entryAdded(EntryEvent<String, Application> event) {
+		updates.incrementAndGet();
+		putRegistration(event.getValue());
+	}
+
+	@Override
+	public void entryUpdated(EntryEvent<String, Application> event) {
+		updates.incrementAndGet();
+		putRegistration(event.getValue());
+	}
+
+	@Override
+	public void entryRemoved(EntryEvent<String, Application> event) {
+		updates.incrementAndGet();
+		remove(event.getKey());
+	}
+
+	@Override
+	public void entryEvicted(EntryEvent<String, Application> event) {
+		updates.incrementAndGet();
+		remove(event.getKey());
+	}
+
+	@Override
+	public void mapCleared(MapEvent event) {
+		sync();
+	}
+
+	@Override
+	public void mapEvicted(MapEvent event) {
+		sync();
+	}
+
+	private synchronized void putRegistration(Application registration) {
+		changed(registration.getId());
+		apply(registration.getId(), HazelcastApplicationStore.compose(registration,
+				statuses.get(registration.getId())));
+	}
+
+	/**
+	 * The application keeps its last status until its registration is removed as well.
+	 */
+	private synchronized void removeStatus(String id) {
+		changed(id);
+		statuses.remove(id);
+	}
+
+	private void changed(String id) {
+		if (changedDuringSync != null) {
+			changedDuringSync.add(id);
+		}
+	}
+
+	private void apply(String id, Application application) {
+		Application previous = applications.put(id, application);
+		if (HazelcastApplicationStore.isModified(previous, application)) {
+			version.incrementAndGet();
+		}
+	}
+
+	private void syncIfStale() {
+		if (System.currentTimeMillis() - lastSync > maxStaleness && syncLock.tryLock()) {
+			try {
+				if (System.currentTimeMillis() - lastSync > maxStaleness) {
+					sync();
+				}
+			} finally {
+				syncLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Replaces the copy with the maps' current content, except for the entries changed while
+	 * fetching. Differences are counted as corrections, as they are caused by delayed or lost
+	 * events.
+	 */
+	private void sync() {
+		syncLock.lock();
+		try {
+			synchronized (this) {
+				changedDuringSync = new HashSet<>();
+			}
+			Map<String, Application> current = new HashMap<>(map);
+			Map<String, StatusRecord> currentStatuses = new HashMap<>(statusMap);
+			synchronized (this) {
+				Set<String> changed = changedDuringSync;
+				changedDuringSync = null;
+				merge(current, currentStatuses, changed);
+			}
+		} finally {
+			syncLock.unlock();
+		}
+	}
+
+	private void merge(Map<String, Application> current,
+			Map<String, StatusRecord> currentStatuses, Set<String> changed) {
+		boolean initial = syncs.get() == 0L;
+		for (Iterator<String> it = statuses.keySet().iterator(); it.hasNext();) {
+			String id = it.next();
+			if (!changed.contains(id) && !currentStatuses.containsKey(id)) {
+				it.remove();
+			}
+		}
+		for (Entry<String, StatusRecord> entry : currentStatuses.entrySet()) {
+			if (!changed.contains(entry.getKey())) {
+				statuses.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		long corrected = 0L;
+		for (Entry<String, Application> entry : current.entrySet()) {
+			if (changed.contains(entry.getKey())) {
+				continue;
+			}
+			Application application = HazelcastApplicationStore.compose(entry.getValue(),
+					statuses.get(entry.getKey()));
+			Application previous = applications.put(entry.getKey(), application);
+			if (HazelcastApplicationStore.isModified(previous, application)) {
+				corrected++;
+			}
+		}
+		for (Iterator<String> it = applications.keySet().iterator(); it.hasNext();) {
+			String id = it.next();
+			if (!changed.contains(id) && !current.containsKey(id)) {
+				it.remove();
+				corrected++;
+			}
+		}
+		if (corrected > 0L) {
+			version.incrementAndGet();
+			if (!initial) {
+				corrections.addAndGet(corrected);
+			}
+		}
+		syncs.incrementAndGet();
+		lastSync = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return the number of entry events applied to the copy.
+	 */
+	public long getUpdates() {
+		return updates.get();
+	}
+
+	/**
+	 * @return the number of times the whole maps were fetched.
+	 */
+	public long getSyncs() {
+		return syncs.get();
+	}
+
+	/**
+	 * @return the number of entries found outdated when the whole maps were fetched.
+	 */
+	public long getCorrections() {
+		return corrections.get();
+	}
+
+	/**
+	 * @return the time in ms since the whole maps were fetched the last time.
+	 */
+	public long getAge() {
+		return System.currentTimeMillis() - lastSync;
+	}
+
+	/**
+	 * Applies the entry events of the status map.
+	 */
+	private class StatusListener implements EntryAddedListener<String, StatusRecord>,
+			EntryUpdatedListener<String, StatusRecord>, EntryRemovedListener<String, StatusRecord>,
+			EntryEvictedListener<String, StatusRecord>, MapClearedListener, MapEvictedListener {
+
+		@Override
+		public void entryAdded(EntryEvent<String, StatusRecord> event) {
+			updates.incrementAndGet();
+			putStatus(event.getKey(), event.getValue());
+		}
+
+		@Override
+		public void entryUpdated(EntryEvent<String, StatusRecord> event) {
+			updates.incrementAndGet();
+			putStatus(event.getKey(), event.getValue());
+		}
+
+		@Override
+		public void entryRemoved(EntryEvent<String, StatusRecord> event) {
+			updates.incrementAndGet();
+			removeStatus(event.getKey());
+		}
+
+		@Override
+		public void entryEvicted(EntryEvent<String, StatusRecord> event) {
+			updates.incrementAndGet();
+			removeStatus(event.getKey());
+		}
+
+		@Override
+		public void mapCleared(MapEvent event) {
+			sync();
+		}
+
+		@Override
+		public void mapEvicted(MapEvent event) {
+			sync();
+		}
+	}
+
+}
@@ -15,44 +15,338 @@
  */
 package de.codecentric.boot.admin.registry.store;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
+import com.hazelcast.core.IAtomicLong;
 import com.hazelcast.core.IMap;
+import com.hazelcast.core.Member;
+import com.hazelcast.core.PartitionService;
+import com.hazelcast.map.AbstractEntryProcessor;
 import com.hazelcast.query.Predicates;
 
 import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
 
+/**
+ * ApplicationStore backed by two Hazelcast-maps keyed by the application id: the registrations and
+ * the {@link StatusRecord}s, so a status update writes the small record only. Saving an application
+ * sets its status only if there is no status record yet, so a concurrent status update is kept.
+ */
 public class HazelcastApplicationStore implements ApplicationStore {
 
 	private IMap<String, Application> store;
+	private IMap<String, StatusRecord> statuses;
+	private IAtomicLong version;
+	private PartitionService partitionService;
+	private HazelcastApplicationReplica replica;
 
-	public HazelcastApplicationStore(IMap<String, Application> store) {
+	/**
+	 * @param store the map to store the applications' registrations in.
+	 * @param statuses the map to store the applications' status in.
+	 * @param version the version of the maps' content.
+	 * @param partitionService the partitions of the cluster; each member updates the status of the
+	 *        applications in the partitions it owns.
+	 */
+	public HazelcastApplicationStore(IMap<String, Application> store,
+			IMap<String, StatusRecord> statuses, IAtomicLong version,
+			PartitionService partitionService) {
 		this.store = store;
+		this.statuses = statuses;
+		this.version = version;
+		this.partitionService = partitionService;
+	}
+
+	/**
+	 * @param replica the local copy of the maps to serve the reads from, or <code>null</code> to
+	 *        read from the maps.
+	 */
+	public void setReplica(HazelcastApplicationReplica replica) {
+		this.replica = replica;
+	}
+
+	public HazelcastApplicationReplica getReplica() {
+		return replica;
 	}
 
 	@Override
 	public Application save(Application app) {
-		return store.put(app.getId(), app);
+		StatusRecord initialStatus = StatusRecord.of(app.getStatusInfo());
+		StatusRecord previousStatus = statuses.putIfAbsent(app.getId(), initialStatus);
+		Application previous = compose(store.put(app.getId(), app), previousStatus);
+		Application saved = compose(app, previousStatus != null ? previousStatus
+				: initialStatus);
+		if (isModified(previous, saved)) {
+			version.incrementAndGet();
+		}
+		if (replica != null) {
+			replica.put(saved);
+		}
+		return previous;
+	}
+
+	@Override
+	public Collection<Application> saveAll(Collection<Application> apps) {
+		Map<String, Application> batch = new LinkedHashMap<>();
+		for (Application app : apps) {
+			batch.put(app.getId(), app);
+		}
+		Map<String, StatusRecord> previousStatuses = statuses.getAll(batch.keySet());
+		// only the applications without status get an initial one
+		Map<String, StatusRecord> batchStatuses = new HashMap<>(previousStatuses);
+		for (Application app : batch.values()) {
+			if (!batchStatuses.containsKey(app.getId())) {
+				StatusRecord initialStatus = StatusRecord.of(app.getStatusInfo());
+				StatusRecord existing = statuses.putIfAbsent(app.getId(), initialStatus);
+				batchStatuses.put(app.getId(), existing != null ? existing : initialStatus);
+			}
+		}
+		Map<String, Application> previous = compose(store.getAll(batch.keySet()),
+				previousStatuses);
+		store.putAll(batch);
+		Map<String, Application> saved = compose(batch, batchStatuses);
+		if (replica != null) {
+			for (Application app : saved.values()) {
+				replica.put(app);
+			}
+		}
+
+		int modified = 0;
+		for (Application app : saved.values()) {
+			if (isModified(previous.get(app.getId()), app)) {
+				modified++;
+			}
+		}
+		if (modified > 0) {
+			version.addAndGet(modified);
+		}
+		return previous.values();
+	}
+
+	@Override
+	public StatusUpdate updateStatus(String id, StatusInfo statusInfo) {
+		// updated in place on the partition owning the status
+		StatusRecord previous = (StatusRecord) statuses.executeOnKey(id, new UpdateStatus(
+				statusInfo));
+		Application registration = store.get(id);
+		if (registration == null) {
+			return null;
+		}
+		if (previous == null) {
+			// the status is lost, e.g. with a member without backup, so it is added again
+			previous = statuses.putIfAbsent(id, StatusRecord.of(statusInfo));
+			if (previous != null) {
+				return updateStatus(id, statusInfo);
+			}
+			previous = StatusRecord.of(registration.getStatusInfo());
+		}
+
+		StatusInfo from = previous.toStatusInfo();
+		StatusInfo to = previous.hasStatus(statusInfo) ? from : statusInfo;
+		Application updated = Application.create(registration).withStatusInfo(to).build();
+		if (!from.equals(to)) {
+			version.incrementAndGet();
+			if (replica != null) {
+				replica.putStatus(id, StatusRecord.of(to));
+			}
+		}
+		return new StatusUpdate(updated, from, to);
 	}
 
 	@Override
 	public Collection<Application> findAll() {
-		return store.values();
+		if (replica != null) {
+			return replica.values();
+		}
+		Map<String, Application> registrations = new HashMap<>(store);
+		return compose(registrations, statuses.getAll(registrations.keySet())).values();
+	}
+
+	@Override
+	public Collection<Application> findAllLocal() {
+		Set<String> ids = store.localKeySet();
+		return compose(store.getAll(ids), statuses.getAll(ids)).values();
+	}
+
+	@Override
+	public boolean isLocal(String id) {
+		Member owner = partitionService.getPartition(id).getOwner();
+		// partitions not assigned yet are claimed by all members
+		return owner == null || owner.localMember();
 	}
 
 	@Override
 	public Application find(String id) {
-		return store.get(id);
+		if (replica != null) {
+			return replica.get(id);
+		}
+		Application registration = store.get(id);
+		return registration != null ? compose(registration, statuses.get(id)) : null;
+	}
+
+	@Override
+	public Collection<Application> find(Collection<String> ids) {
+		if (replica != null) {
+			List<Application> result = new ArrayList<>();
+			for (String id : ids) {
+				Application a = replica.get(id);
+				if (a != null) {
+					result.add(a);
+				}
+			}
+			return result;
+		}
+		Set<String> keys = new HashSet<>(ids);
+		return compose(store.getAll(keys), statuses.getAll(keys)).values();
 	}
 
 	@Override
 	public Collection<Application> findByName(String name) {
-		return store.values(Predicates.equal("name", name));
+		if (replica != null) {
+			List<Application> result = new ArrayList<>();
+			for (Application a : replica.values()) {
+				if (name.equals(a.getName())) {
+					result.add(a);
+				}
+			}
+			return result;
+		}
+		Map<String, Application> registrations = new HashMap<>();
+		for (Application a : store.values(Predicates.equal("name", name))) {
+			registrations.put(a.getId(), a);
+		}
+		return compose(registrations, statuses.getAll(registrations.keySet())).values();
+	}
+
+	@Override
+	public Collection<Application> findByStatus(String status) {
+		if (replica != null) {
+			List<Application> result = new ArrayList<>();
+			for (Application a : replica.values()) {
+				if (status.equals(a.getStatusInfo().getStatus())) {
+					result.add(a);
+				}
+			}
+			return result;
+		}
+		Map<String, StatusRecord> records = new HashMap<>();
+		for (Entry<String, StatusRecord> entry : statuses.entrySet(Predicates.equal("status",
+				status))) {
+			records.put(entry.getKey(), entry.getValue());
+		}
+		// statuses left behind by a concurrent removal have no registration
+		return compose(store.getAll(records.keySet()), records).values();
 	}
 
 	@Override
 	public Application delete(String id) {
-		return store.remove(id);
+		Application previous = store.remove(id);
+		StatusRecord previousStatus = statuses.remove(id);
+		if (previous != null) {
+			version.incrementAndGet();
+		}
+		if (replica != null) {
+			replica.remove(id);
+		}
+		return compose(previous, previousStatus);
+	}
+
+	@Override
+	public Collection<Application> delete(Collection<String> ids) {
+		Set<String> keys = new HashSet<>(ids);
+		Map<String, Application> previous = new HashMap<>();
+		for (Entry<String, Object> entry : store.executeOnKeys(keys,
+				new Remove<Application>()).entrySet()) {
+			if (entry.getValue() != null) {
+				previous.put(entry.getKey(), (Application) entry.getValue());
+			}
+		}
+		Map<String, StatusRecord> previousStatuses = new HashMap<>();
+		for (Entry<String, Object> entry : statuses.executeOnKeys(keys,
+				new Remove<StatusRecord>()).entrySet()) {
+			previousStatuses.put(entry.getKey(), (StatusRecord) entry.getValue());
+		}
+		if (!previous.isEmpty()) {
+			version.addAndGet(previous.size());
+		}
+		if (replica != null) {
+			for (String id : ids) {
+				replica.remove(id);
+			}
+		}
+		return compose(previous, previousStatuses).values();
+	}
+
+	@Override
+	public long getVersion() {
+		// the replica may lag behind the maps, so its content has a version of its own
+		if (replica != null) {
+			return replica.getVersion();
+		}
+		return version.get();
+	}
+
+	static boolean isModified(Application previous, Application current) {
+		return previous == null || !previous.equals(current)
+				|| !previous.getStatusInfo().equals(current.getStatusInfo());
+	}
+
+	/**
+	 * @return the registration with the given status, or the registration as is if the status is
+	 *         missing.
+	 */
+	static Application compose(Application registration, StatusRecord status) {
+		if (registration == null || status == null) {
+			return registration;
+		}
+		return Application.create(registration).withStatusInfo(status.toStatusInfo()).build();
+	}
+
+	private static Map<String, Application> compose(Map<String, Application> registrations,
+			Map<String, StatusRecord> statuses) {
+		Map<String, Application> result = new LinkedHashMap<>();
+		for (Entry<String, Application> entry : registrations.entrySet()) {
+			result.put(entry.getKey(), compose(entry.getValue(), statuses.get(entry.getKey())));
+		}
+		return result;
+	}
+
+	private static class UpdateStatus extends AbstractEntryProcessor<String, StatusRecord> {
+		private static final long serialVersionUID = 1L;
+		private final StatusInfo statusInfo;
+
+		private UpdateStatus(StatusInfo statusInfo) {
+			this.statusInfo = statusInfo;
+		}
+
+		@Override
+		public Object process(Entry<String, StatusRecord> entry) {
+			StatusRecord current = entry.getValue();
+			if (current != null && !current.hasStatus(statusInfo)) {
+				entry.setValue(StatusRecord.of(statusInfo));
+			}
+			return current;
+		}
+	}
+
+	private static class Remove<V> extends AbstractEntryProcessor<String, V> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Object process(Entry<String, V> entry) {
+			V previous = entry.getValue();
+			if (previous != null) {
+				entry.setValue(null);
+			}
+			return previous;
+		}
 	}
 
 }
@@ -18,20 +18,75 @@ package de.codecentric.boot.admin.registry.store;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
 
 /**
- * Simple ApplicationStore backed by a ConcurrentHashMap.
+ * Simple ApplicationStore backed by a ConcurrentHashMap. The applications are indexed by name and
+ * status, so queries for these don't need to scan all applications.
+ * <p>
+ * The version starts at a random value, so the versions seen before a restart don't match the
+ * versions afterwards.
  */
 public class SimpleApplicationStore implements ApplicationStore {
 
 	private final ConcurrentHashMap<String, Application> map = new ConcurrentHashMap<>();
+	private final AttributeIndex nameIndex = new AttributeIndex(AttributeIndex.NAME);
+	private final AttributeIndex statusIndex = new AttributeIndex(AttributeIndex.STATUS);
+	private final Object[] locks = new Object[64];
+	private final AtomicLong version = new AtomicLong(
+			(new Random().nextLong() & Long.MAX_VALUE) >>> 1);
+
+	public SimpleApplicationStore() {
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+	}
 
 	@Override
 	public Application save(Application app) {
-		return map.put(app.getId(), app);
+		synchronized (getLock(app.getId())) {
+			Application previous = map.put(app.getId(), app);
+			updateIndices(previous, app);
+			if (isModified(previous, app)) {
+				version.incrementAndGet();
+			}
+			return previous;
+		}
+	}
+
+	@Override
+	public Collection<Application> saveAll(Collection<Application> apps) {
+		List<Application> result = new ArrayList<>();
+		for (Application app : apps) {
+			Application previous = save(app);
+			if (previous != null) {
+				result.add(previous);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public StatusUpdate updateStatus(String id, StatusInfo statusInfo) {
+		synchronized (getLock(id)) {
+			Application current = map.get(id);
+			if (current == null) {
+				return null;
+			}
+			if (current.getStatusInfo().equals(statusInfo)) {
+				return new StatusUpdate(current, current.getStatusInfo(), current.getStatusInfo());
+			}
+			Application updated = Application.create(current).withStatusInfo(statusInfo).build();
+			map.put(id, updated);
+			updateIndices(current, updated);
+			version.incrementAndGet();
+			return new StatusUpdate(updated, current.getStatusInfo(), statusInfo);
+		}
 	}
 
 	@Override
@@ -39,16 +94,52 @@ public class SimpleApplicationStore implements ApplicationStore {
 		return map.values();
 	}
 
+	@Override
+	public Collection<Application> findAllLocal() {
+		return findAll();
+	}
+
+	@Override
+	public boolean isLocal(String id) {
+		return true;
+	}
+
 	@Override
 	public Application find(String id) {
 		return map.get(id);
 	}
 
+	@Override
+	public Collection<Application> find(Collection<String> ids) {
+		List<Application> result = new ArrayList<>();
+		for (String id : ids) {
+			Application a = map.get(id);
+			if (a != null) {
+				result.add(a);
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public Collection<Application> findByName(String name) {
 		List<Application> result = new ArrayList<>();
-		for (Application a : map.values()) {
-			if (name.equals(a.getName())) {
+		for (String id : nameIndex.get(name)) {
+			Application a = map.get(id);
+			// the index may lag behind concurrent changes
+			if (a != null && name.equals(a.getName())) {
+				result.add(a);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Collection<Application> findByStatus(String status) {
+		List<Application> result = new ArrayList<>();
+		for (String id : statusIndex.get(status)) {
+			Application a = map.get(id);
+			if (a != null && status.equals(a.getStatusInfo().getStatus())) {
 				result.add(a);
 			}
 		}
@@ -57,7 +148,48 @@ public class SimpleApplicationStore implements ApplicationStore {
 
 	@Override
 	public Application delete(String id) {
-		return map.remove(id);
+		synchronized (getLock(id)) {
+			Application previous = map.remove(id);
+			updateIndices(previous, null);
+			if (previous != null) {
+				version.incrementAndGet();
+			}
+			return previous;
+		}
+	}
+
+	@Override
+	public Collection<Application> delete(Collection<String> ids) {
+		List<Application> result = new ArrayList<>();
+		for (String id : ids) {
+			Application previous = delete(id);
+			if (previous != null) {
+				result.add(previous);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public long getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * Periodic re-registrations don't modify the store's content.
+	 */
+	private static boolean isModified(Application previous, Application current) {
+		return previous == null || !previous.equals(current)
+				|| !previous.getStatusInfo().equals(current.getStatusInfo());
+	}
+
+	private void updateIndices(Application previous, Application current) {
+		nameIndex.update(previous, current);
+		statusIndex.update(previous, current);
+	}
+
+	private Object getLock(String id) {
+		return locks[(id.hashCode() & Integer.MAX_VALUE) % locks.length];
 	}
 
 }
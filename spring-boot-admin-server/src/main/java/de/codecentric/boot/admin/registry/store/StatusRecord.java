@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import java.io.Serializable;
+
+import de.codecentric.boot.admin.model.StatusInfo;
+
+/**
+ * Compact form of a StatusInfo, stored apart from the application's registration as it changes
+ * with every status check. The well-known statuses are encoded as a code; other statuses are kept
+ * as string.
+ */
+public final class StatusRecord implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	static final byte CUSTOM = -1;
+	private static final String[] STATUSES = { "UNKNOWN", "UP", "DOWN", "OUT_OF_SERVICE",
+			"OFFLINE" };
+
+	private final byte code;
+	private final long timestamp;
+	private final String custom;
+
+	private StatusRecord(byte code, long timestamp, String custom) {
+		this.code = code;
+		this.timestamp = timestamp;
+		this.custom = custom;
+	}
+
+	public static StatusRecord of(StatusInfo statusInfo) {
+		byte code = encode(statusInfo.getStatus());
+		return new StatusRecord(code, statusInfo.getTimestamp(),
+				code == CUSTOM ? statusInfo.getStatus() : null);
+	}
+
+	/**
+	 * @param code the code of the status.
+	 * @param timestamp the time of the status.
+	 * @param custom the status if the code is {@link #CUSTOM}, else ignored.
+	 * @return the record.
+	 */
+	static StatusRecord valueOf(byte code, long timestamp, String custom) {
+		if (code == CUSTOM) {
+			return new StatusRecord(code, timestamp, custom);
+		}
+		if (code < 0 || code >= STATUSES.length) {
+			throw new IllegalArgumentException("Unknown status code " + code);
+		}
+		return new StatusRecord(code, timestamp, null);
+	}
+
+	private static byte encode(String status) {
+		for (byte i = 0; i < STATUSES.length; i++) {
+			if (STATUSES[i].equals(status)) {
+				return i;
+			}
+		}
+		return CUSTOM;
+	}
+
+	public byte getCode() {
+		return code;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public String getStatus() {
+		return code == CUSTOM ? custom : STATUSES[code];
+	}
+
+	String getCustom() {
+		return custom;
+	}
+
+	public StatusInfo toStatusInfo() {
+		return StatusInfo.valueOf(getStatus(), timestamp);
+	}
+
+	/**
+	 * @return true if this record has the same status as the given StatusInfo, regardless of the
+	 *         time.
+	 */
+	public boolean hasStatus(StatusInfo statusInfo) {
+		return getStatus().equals(statusInfo.getStatus());
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import java.io.IOException;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+/**
+ * Hazelcast-Serializer for StatusRecords, writing the code and timestamp only; the status string
+ * is written for custom statuses only.
+ */
+public class StatusRecordSerializer implements StreamSerializer<StatusRecord> {
+	public static final int TYPE_ID = 6503;
+
+	@Override
+	public int getTypeId() {
+		return TYPE_ID;
+	}
+
+	@Override
+	public void write(ObjectDataOutput out, StatusRecord status) throws IOException {
+		out.writeByte(status.getCode());
+		out.writeLong(status.getTimestamp());
+		if (status.getCode() == StatusRecord.CUSTOM) {
+			out.writeUTF(status.getCustom());
+		}
+	}
+
+	@Override
+	public StatusRecord read(ObjectDataInput in) throws IOException {
+		byte code = in.readByte();
+		long timestamp = in.readLong();
+		return StatusRecord.valueOf(code, timestamp,
+				code == StatusRecord.CUSTOM ? in.readUTF() : null);
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+}
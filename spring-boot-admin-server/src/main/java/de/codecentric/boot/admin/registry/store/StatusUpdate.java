@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import java.io.Serializable;
+
+import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
+
+/**
+ * The outcome of updating the status of a stored application.
+ */
+public class StatusUpdate implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final Application application;
+	private final StatusInfo from;
+	private final StatusInfo to;
+
+	public StatusUpdate(Application application, StatusInfo from, StatusInfo to) {
+		this.application = application;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * @return the application as stored after the update.
+	 */
+	public Application getApplication() {
+		return application;
+	}
+
+	/**
+	 * @return the status stored before the update.
+	 */
+	public StatusInfo getFrom() {
+		return from;
+	}
+
+	/**
+	 * @return the status stored after the update.
+	 */
+	public StatusInfo getTo() {
+		return to;
+	}
+
+	/**
+	 * @return false if the application already had the status, so nothing was written.
+	 */
+	public boolean isChanged() {
+		return !from.equals(to);
+	}
+
+}
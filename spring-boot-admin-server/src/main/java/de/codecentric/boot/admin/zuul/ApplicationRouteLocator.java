@@ -15,54 +15,195 @@
  */
 package de.codecentric.boot.admin.zuul;
 
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.cloud.netflix.zuul.filters.ProxyRouteLocator;
 import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
 import org.springframework.cloud.netflix.zuul.filters.ZuulProperties.ZuulRoute;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
 
 import de.codecentric.boot.admin.model.Application;
 import de.codecentric.boot.admin.registry.ApplicationRegistry;
 
 /**
- * RouteLocator to register all applications' routes to zuul
+ * RouteLocator to register all applications' routes to zuul. The routes are kept per application,
+ * so a single application's routes can be added or removed without recalculating all routes. The
+ * routes for a request are looked up by the application id contained in the path, so the cost
+ * doesn't grow with the number of applications.
  *
  * @author Johannes Stelzer
  */
 public class ApplicationRouteLocator extends ProxyRouteLocator {
 
+	private final ConcurrentMap<String, List<ZuulRoute>> applicationRoutes = new ConcurrentHashMap<>();
+	private final PathMatcher pathMatcher = new AntPathMatcher();
+	private final String servletPath;
+	private final ZuulProperties properties;
 	private ApplicationRegistry registry;
 	private String prefix;
+	private Set<String> ignoredEndpoints = Collections.emptySet();
 
 	public ApplicationRouteLocator(String servletPath, ApplicationRegistry registry,
 			ZuulProperties properties, String prefix) {
 		super(servletPath, null, properties);
+		this.servletPath = servletPath;
+		this.properties = properties;
 		this.registry = registry;
 		this.prefix = prefix;
 	}
 
+	/**
+	 * Recalculates the routes of all applications.
+	 */
 	@Override
-	protected LinkedHashMap<String, ZuulRoute> locateRoutes() {
-		LinkedHashMap<String, ZuulRoute> locateRoutes = super.locateRoutes();
-
+	public void resetRoutes() {
 		if (registry != null) {
+			Map<String, List<ZuulRoute>> routes = new HashMap<>();
 			for (Application application : registry.getApplications()) {
-				addRoute(locateRoutes, prefix + "/" + application.getId() + "/health/**",
-						application.getHealthUrl());
+				routes.put(application.getId(), createRoutes(application));
+			}
+			applicationRoutes.keySet().retainAll(routes.keySet());
+			applicationRoutes.putAll(routes);
+		}
+		super.resetRoutes();
+	}
+
+	/**
+	 * Recalculates the routes of a single application. The routes are left untouched if they didn't
+	 * change.
+	 *
+	 * @param id the applications id
+	 * @return true if the routes changed.
+	 */
+	public boolean refreshRoutes(String id) {
+		Application application = registry != null ? registry.getApplication(id) : null;
+		if (application == null) {
+			return applicationRoutes.remove(id) != null;
+		}
+
+		List<ZuulRoute> routes = createRoutes(application);
+		return !routes.equals(applicationRoutes.put(id, routes));
+	}
+
+	private List<ZuulRoute> createRoutes(Application application) {
+		List<ZuulRoute> routes = new ArrayList<>(2);
+		String path = prefix + "/" + application.getId() + "/health/**";
+		routes.add(new ZuulRoute(path, application.getHealthUrl()));
+
+		if (!StringUtils.isEmpty(application.getManagementUrl())) {
+			path = prefix + "/" + application.getId() + "/*/**";
+			routes.add(new ZuulRoute(path, application.getManagementUrl()));
+		}
+		return routes;
+	}
+
+	@Override
+	public Map<String, String> getRoutes() {
+		Map<String, String> routes = super.getRoutes();
+		for (List<ZuulRoute> list : applicationRoutes.values()) {
+			for (ZuulRoute route : list) {
+				routes.put(route.getPath(), route.getLocation());
+			}
+		}
+		return routes;
+	}
 
-				if (!StringUtils.isEmpty(application.getManagementUrl())) {
-					addRoute(locateRoutes, prefix + "/" + application.getId() + "/*/**",
-							application.getManagementUrl());
+	/**
+	 * @return the paths of all routes not belonging to an application.
+	 */
+	public Collection<String> getConfiguredRoutePaths() {
+		return super.getRoutes().keySet();
+	}
+
+	@Override
+	public ProxyRouteSpec getMatchingRoute(String path) {
+		ProxyRouteSpec spec = super.getMatchingRoute(path);
+		if (spec != null) {
+			return spec;
+		}
+
+		if (StringUtils.hasText(servletPath) && !servletPath.equals("/")
+				&& path.startsWith(servletPath)) {
+			path = path.substring(servletPath.length());
+		}
+
+		ZuulRoute route = getApplicationRoute(path);
+		return route != null ? createRouteSpec(route, path) : null;
+	}
+
+	/**
+	 * Looks up the matching route by the application id contained in the path.
+	 *
+	 * @param path the request path (without the servlet path)
+	 * @return the matching route or <code>null</code> if there is none.
+	 */
+	public ZuulRoute getApplicationRoute(String path) {
+		int start = prefix.length() + 1;
+		if (!path.startsWith(prefix) || path.length() <= start || path.charAt(start - 1) != '/') {
+			return null;
+		}
+		int end = path.indexOf('/', start);
+		if (end == -1) {
+			return null;
+		}
+		int endpointEnd = path.indexOf('/', end + 1);
+		String endpoint = path.substring(end + 1, endpointEnd == -1 ? path.length() : endpointEnd);
+		if (ignoredEndpoints.contains(endpoint)) {
+			return null;
+		}
+
+		List<ZuulRoute> routes = applicationRoutes.get(path.substring(start, end));
+		if (routes != null) {
+			for (ZuulRoute route : routes) {
+				if (pathMatcher.match(route.getPath(), path)) {
+					return route;
 				}
 			}
 		}
+		return null;
+	}
 
-		return locateRoutes;
+	/**
+	 * Sets the names of endpoints below an application which are served by the admin server itself
+	 * and must not be routed to the application.
+	 *
+	 * @param ignoredEndpoints the endpoint names, e.g. <code>status-interval</code>.
+	 */
+	public void setIgnoredEndpoints(Set<String> ignoredEndpoints) {
+		this.ignoredEndpoints = ignoredEndpoints;
 	}
 
-	private void addRoute(LinkedHashMap<String, ZuulRoute> locateRoutes, String path, String url) {
-		locateRoutes.put(path, new ZuulRoute(path, url));
+	/**
+	 * Creates the route spec the same way {@link ProxyRouteLocator} does.
+	 */
+	private ProxyRouteSpec createRouteSpec(ZuulRoute route, String path) {
+		String routePrefix = properties.getPrefix();
+		String targetPath = path;
+		if (path.startsWith(routePrefix) && properties.isStripPrefix()) {
+			targetPath = path.substring(routePrefix.length());
+		}
+		if (route.isStripPrefix()) {
+			int index = route.getPath().indexOf("*") - 1;
+			if (index > 0) {
+				String stripped = route.getPath().substring(0, index);
+				targetPath = targetPath.replaceFirst(stripped, "");
+				routePrefix = routePrefix + stripped;
+			}
+		}
+		Boolean retryable = route.getRetryable() != null ? route.getRetryable() : properties
+				.getRetryable();
+		return new ProxyRouteSpec(route.getId(), targetPath, route.getLocation(), routePrefix,
+				retryable);
 	}
 
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.zuul;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties.ZuulRoute;
+import org.springframework.cloud.netflix.zuul.web.ZuulController;
+import org.springframework.cloud.netflix.zuul.web.ZuulHandlerMapping;
+
+/**
+ * ZuulHandlerMapping which dispatches the requests to the applications by looking up the
+ * application id contained in the path. Only the routes not belonging to an application are
+ * registered as handlers, so the applications' routes don't need to be matched one by one.
+ */
+public class ApplicationZuulHandlerMapping extends ZuulHandlerMapping {
+
+	private final ApplicationRouteLocator routeLocator;
+	private final ZuulController zuul;
+
+	public ApplicationZuulHandlerMapping(ApplicationRouteLocator routeLocator, ZuulController zuul) {
+		super(routeLocator, zuul);
+		this.routeLocator = routeLocator;
+		this.zuul = zuul;
+	}
+
+	@Override
+	public void registerHandlers() {
+		for (String path : routeLocator.getConfiguredRoutePaths()) {
+			registerHandler(path, zuul);
+		}
+	}
+
+	@Override
+	protected Object lookupHandler(String urlPath, HttpServletRequest request) throws Exception {
+		ZuulRoute route = routeLocator.getApplicationRoute(urlPath);
+		if (route != null) {
+			String pathWithinMapping = getPathMatcher().extractPathWithinPattern(route.getPath(),
+					urlPath);
+			return buildPathExposingHandler(zuul, route.getPath(), pathWithinMapping, null);
+		}
+		return super.lookupHandler(urlPath, request);
+	}
+
+}
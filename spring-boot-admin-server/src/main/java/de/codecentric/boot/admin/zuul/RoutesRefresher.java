@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.zuul;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import de.codecentric.boot.admin.event.RoutesOutdatedEvent;
+
+/**
+ * Coalesces bursts of {@link RoutesOutdatedEvent}s: The routes are refreshed when no further event
+ * was received within the window, but at the latest after the maximum delay. All outdated
+ * applications are refreshed at once; if any event outdated all routes, the routes are rebuilt
+ * just once. The routes of applications registered or deregistered at this server are refreshed
+ * right away, so they are routed as soon as the registration returns.
+ */
+public class RoutesRefresher implements DisposableBean {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RoutesRefresher.class);
+
+	private final ApplicationRouteLocator routeLocator;
+	private final ApplicationZuulHandlerMapping handlerMapping;
+	private final ScheduledExecutorService executor;
+	private final Object refreshLock = new Object();
+	private final Set<String> outdated = new LinkedHashSet<>();
+	private final AtomicLong eventsReceived = new AtomicLong();
+	private final AtomicLong rebuilds = new AtomicLong();
+	private final AtomicLong refreshes = new AtomicLong();
+	private boolean allOutdated = false;
+	private long firstOutdated;
+	private ScheduledFuture<?> pending;
+
+	/**
+	 * Time in ms without further events until the routes are refreshed.
+	 */
+	private long window = 100L;
+
+	/**
+	 * Maximum time in ms the routes are refreshed after the first outdating event.
+	 */
+	private long maxDelay = 1_000L;
+
+	private final Runnable refreshTask = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				refresh();
+			} catch (RuntimeException ex) {
+				LOGGER.warn("Couldn't refresh routes", ex);
+			}
+		}
+	};
+
+	public RoutesRefresher(ApplicationRouteLocator routeLocator,
+			ApplicationZuulHandlerMapping handlerMapping) {
+		this.routeLocator = routeLocator;
+		this.handlerMapping = handlerMapping;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("routes-refresher-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+	}
+
+	/**
+	 * Marks the routes as outdated and schedules the refresh.
+	 *
+	 * @param event the event telling which routes are outdated.
+	 */
+	public synchronized void routesOutdated(RoutesOutdatedEvent event) {
+		eventsReceived.incrementAndGet();
+		if (event.getApplicationId() == null) {
+			allOutdated = true;
+			outdated.clear();
+		} else if (!allOutdated) {
+			outdated.add(event.getApplicationId());
+		}
+
+		long now = System.currentTimeMillis();
+		if (pending == null) {
+			firstOutdated = now;
+		} else {
+			pending.cancel(false);
+		}
+		long delay = Math.max(Math.min(window, firstOutdated + maxDelay - now), 0L);
+		pending = executor.schedule(refreshTask, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Refreshes the routes of a single application right away.
+	 *
+	 * @param id the id of the application whose routes are outdated.
+	 */
+	public void refreshRoutes(String id) {
+		synchronized (this) {
+			outdated.remove(id);
+		}
+		synchronized (refreshLock) {
+			routeLocator.refreshRoutes(id);
+		}
+		refreshes.incrementAndGet();
+	}
+
+	private void refresh() {
+		boolean all;
+		List<String> ids;
+		synchronized (this) {
+			all = allOutdated;
+			ids = new ArrayList<>(outdated);
+			allOutdated = false;
+			outdated.clear();
+			pending = null;
+		}
+
+		// a rebuild must not drop the routes of an application refreshed meanwhile
+		synchronized (refreshLock) {
+			if (all) {
+				LOGGER.debug("Rebuilding all routes");
+				routeLocator.resetRoutes();
+				handlerMapping.registerHandlers();
+				rebuilds.incrementAndGet();
+			} else if (!ids.isEmpty()) {
+				LOGGER.debug("Refreshing routes for {}", ids);
+				for (String id : ids) {
+					routeLocator.refreshRoutes(id);
+				}
+				refreshes.incrementAndGet();
+			}
+		}
+	}
+
+	public void setWindow(long window) {
+		this.window = window;
+	}
+
+	public void setMaxDelay(long maxDelay) {
+		this.maxDelay = maxDelay;
+	}
+
+	/**
+	 * @return the number of RoutesOutdatedEvents received.
+	 */
+	public long getEventsReceived() {
+		return eventsReceived.get();
+	}
+
+	/**
+	 * @return the number of times all routes were rebuilt.
+	 */
+	public long getRebuilds() {
+		return rebuilds.get();
+	}
+
+	/**
+	 * @return the number of times the routes of single applications were refreshed.
+	 */
+	public long getRefreshes() {
+		return refreshes.get();
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+}
@@ -22,10 +22,12 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
 
 import com.hazelcast.config.Config;
 
+import de.codecentric.boot.admin.controller.JournalController;
 import de.codecentric.boot.admin.discovery.ApplicationDiscoveryListener;
 import de.codecentric.boot.admin.journal.store.HazelcastJournaledEventStore;
 import de.codecentric.boot.admin.journal.store.JournaledEventStore;
@@ -82,6 +84,14 @@ public class AdminServerWebConfigurationTest {
 
 	}
 
+	@Test
+	public void simpleConfig_journalMaxPendingEvents() {
+		load("spring.boot.admin.discovery.enabled:false",
+				"spring.boot.admin.journal.max-pending-events:10");
+		assertThat(ReflectionTestUtils.getField(context.getBean(JournalController.class),
+				"maxPendingEvents"), is((Object) 10));
+	}
+
 	@Test
 	public void simpleConfig_mail() {
 		load("spring.mail.host:localhost", "spring.boot.admin.discovery.enabled:false");
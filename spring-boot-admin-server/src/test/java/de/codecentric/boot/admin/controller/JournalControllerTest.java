@@ -15,14 +15,18 @@
  */
 package de.codecentric.boot.admin.controller;
 
+import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.junit.Test;
 
+import de.codecentric.boot.admin.event.ClientApplicationDeregisteredEvent;
 import de.codecentric.boot.admin.event.ClientApplicationEvent;
 import de.codecentric.boot.admin.event.ClientApplicationRegisteredEvent;
 import de.codecentric.boot.admin.journal.ApplicationEventJournal;
@@ -41,11 +45,32 @@ public class JournalControllerTest {
 				.create("foo").withId("bar").build());
 		journal.onClientApplicationEvent(emittedEvent);
 
-		Collection<ClientApplicationEvent> history = controller.getJournal();
+		Collection<ClientApplicationEvent> history = controller.getJournal(null, null, null, null,
+				null, null, null, null);
 
 		assertThat(history.size(), is(1));
 
 		ClientApplicationEvent event = history.iterator().next();
 		assertThat(event, sameInstance(emittedEvent));
 	}
+
+	@Test
+	public void test_getJournal_query() {
+		Application foo = Application.create("foo").withId("foo").build();
+		Application bar = Application.create("bar").withId("bar").build();
+		ClientApplicationEvent first = new ClientApplicationRegisteredEvent(foo);
+		ClientApplicationEvent second = new ClientApplicationRegisteredEvent(bar);
+		ClientApplicationEvent third = new ClientApplicationDeregisteredEvent(foo);
+		journal.onClientApplicationEvent(first);
+		journal.onClientApplicationEvent(second);
+		journal.onClientApplicationEvent(third);
+
+		assertThat(new ArrayList<>(controller.getJournal(null, null, 1, null, null, null, null,
+				null)), is((List<ClientApplicationEvent>) singletonList(third)));
+		assertThat(new ArrayList<>(controller.getJournal(null, third.getSequence(), null, null,
+				"foo", null, null, null)), is((List<ClientApplicationEvent>) singletonList(first)));
+		assertThat(new ArrayList<>(controller.getJournal(first.getSequence(), null, null, null,
+				null, "REGISTRATION", null, null)),
+				is((List<ClientApplicationEvent>) singletonList(second)));
+	}
 }
@@ -17,9 +17,14 @@ package de.codecentric.boot.admin.controller;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -27,23 +32,36 @@ import org.mockito.Mockito;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
+import de.codecentric.boot.admin.registry.ApplicationChangeLog;
+import de.codecentric.boot.admin.registry.ApplicationChanges;
 import de.codecentric.boot.admin.registry.ApplicationRegistry;
+import de.codecentric.boot.admin.registry.BatchResult;
 import de.codecentric.boot.admin.registry.HashingApplicationUrlIdGenerator;
+import de.codecentric.boot.admin.registry.StatusUpdater;
 import de.codecentric.boot.admin.registry.store.SimpleApplicationStore;
 
 public class RegistryControllerTest {
 
 	private RegistryController controller;
 	private ApplicationRegistry registry;
+	private StatusUpdater statusUpdater;
 
 	@Before
 	public void setup() {
-		registry = new ApplicationRegistry(new SimpleApplicationStore(),
-				new HashingApplicationUrlIdGenerator());
+		SimpleApplicationStore store = new SimpleApplicationStore();
+		registry = new ApplicationRegistry(store, new HashingApplicationUrlIdGenerator());
 		registry.setApplicationEventPublisher(Mockito.mock(ApplicationEventPublisher.class));
-		controller = new RegistryController(registry);
+		statusUpdater = new StatusUpdater(Mockito.mock(RestTemplate.class), store);
+		statusUpdater.setStatusLifetime(30_000L);
+		controller = new RegistryController(registry, statusUpdater, new ApplicationChangeLog(
+				registry, 100));
 	}
 
 	@Test
@@ -62,6 +80,33 @@ public class RegistryControllerTest {
 		assertEquals("test", response.getBody().getName());
 	}
 
+	@Test
+	public void registerAll() {
+		List<BatchResult> results = controller.registerAll(Arrays.asList(
+				Application.create("FOO").withHealthUrl("http://localhost/mgmt/health").build(),
+				Application.create("BAR").build()));
+
+		assertEquals(2, results.size());
+		assertEquals("FOO", results.get(0).getApplication().getName());
+		assertNull(results.get(1).getApplication());
+		assertEquals("Health-URL must not be null", results.get(1).getError());
+
+		results = controller.unregisterAll(Collections.singletonList(results.get(0).getId()));
+		assertTrue(results.get(0).isSuccess());
+		assertEquals(0, registry.getApplications().size());
+	}
+
+	@Test
+	public void registerAll_ignores_statusInfo() {
+		List<BatchResult> results = controller.registerAll(Collections.singletonList(Application
+				.create("FOO").withHealthUrl("http://localhost/mgmt/health")
+				.withStatusInfo(StatusInfo.ofUp()).build()));
+
+		assertEquals("UNKNOWN", results.get(0).getApplication().getStatusInfo().getStatus());
+		assertEquals("UNKNOWN", registry.getApplication(results.get(0).getId()).getStatusInfo()
+				.getStatus());
+	}
+
 	@Test
 	public void register_twice() {
 		Application application = Application.create("test")
@@ -94,7 +139,7 @@ public class RegistryControllerTest {
 
 		application = controller.register(application).getBody();
 
-		ResponseEntity<?> response = controller.get(application.getId());
+		ResponseEntity<?> response = controller.get(application.getId(), request());
 		Application body = (Application) response.getBody();
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 		assertEquals("http://localhost/health", body.getHealthUrl());
@@ -107,10 +152,23 @@ public class RegistryControllerTest {
 				.withHealthUrl("http://localhost/mgmt/health").build();
 		controller.register(application);
 
-		ResponseEntity<?> response = controller.get("unknown");
+		ResponseEntity<?> response = controller.get("unknown", request());
 		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
 	}
 
+	@Test
+	public void statusInterval() {
+		Application application = controller.register(
+				Application.create("FOO").withHealthUrl("http://localhost/health").build())
+				.getBody();
+
+		ResponseEntity<?> response = controller.statusInterval(application.getId());
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(30_000L, ((Map<?, ?>) response.getBody()).get("interval"));
+
+		assertEquals(HttpStatus.NOT_FOUND, controller.statusInterval("unknown").getStatusCode());
+	}
+
 	@Test
 	public void unregister() {
 		Application application = Application.create("FOO")
@@ -122,7 +180,8 @@ public class RegistryControllerTest {
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 		assertEquals(application, response.getBody());
 
-		assertEquals(HttpStatus.NOT_FOUND, controller.get(application.getId()).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND,
+				controller.get(application.getId(), request()).getStatusCode());
 	}
 
 	@Test
@@ -142,7 +201,7 @@ public class RegistryControllerTest {
 				Application.create("FOO").withHealthUrl("http://localhost/mgmt/health").build())
 				.getBody();
 
-		Collection<Application> applications = controller.applications(null);
+		Collection<Application> applications = controller.applications(null, null, request());
 		assertEquals(1, applications.size());
 		assertTrue(applications.contains(app));
 	}
@@ -161,10 +220,68 @@ public class RegistryControllerTest {
 				.withHealthUrl("http://localhost3/mgmt/health").build();
 		application3 = controller.register(application3).getBody();
 
-		Collection<Application> applications = controller.applications("FOO");
+		Collection<Application> applications = controller.applications("FOO", null, request());
 		assertEquals(2, applications.size());
 		assertTrue(applications.contains(application));
 		assertTrue(applications.contains(application2));
 		assertFalse(applications.contains(application3));
 	}
+
+	@Test
+	public void applicationsByStatus() {
+		Application application = Application.create("FOO")
+				.withHealthUrl("http://localhost1/mgmt/health").build();
+		application = controller.register(application).getBody();
+
+		assertEquals(1, controller.applications(null, "unknown", request()).size());
+		assertEquals(1, controller.applications("FOO", "UNKNOWN", request()).size());
+		assertEquals(0, controller.applications("BAR", "UNKNOWN", request()).size());
+		assertEquals(0, controller.applications(null, "UP", request()).size());
+	}
+
+	@Test
+	public void applications_notModified() {
+		controller.register(Application.create("FOO")
+				.withHealthUrl("http://localhost/mgmt/health").build());
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.applications(null, null, new ServletWebRequest(new MockHttpServletRequest(
+				"GET", "/api/applications"), response));
+		String etag = response.getHeader("ETag");
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/applications");
+		request.addHeader("If-None-Match", etag);
+		response = new MockHttpServletResponse();
+		assertNull(controller.applications(null, null, new ServletWebRequest(request, response)));
+		assertEquals(304, response.getStatus());
+
+		// the re-registration doesn't change the registry
+		controller.register(Application.create("FOO")
+				.withHealthUrl("http://localhost/mgmt/health").build());
+		response = new MockHttpServletResponse();
+		assertNull(controller.applications(null, null, new ServletWebRequest(request, response)));
+
+		controller.register(Application.create("BAR")
+				.withHealthUrl("http://localhost2/mgmt/health").build());
+		response = new MockHttpServletResponse();
+		assertEquals(2, controller.applications(null, null,
+				new ServletWebRequest(request, response)).size());
+		assertEquals(200, response.getStatus());
+	}
+
+	@Test
+	public void changes() {
+		controller.register(Application.create("FOO")
+				.withHealthUrl("http://localhost/mgmt/health").build());
+
+		ResponseEntity<?> response = controller.changes(null);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		ApplicationChanges changes = (ApplicationChanges) response.getBody();
+		assertTrue(changes.isFull());
+		assertEquals(1, changes.getApplications().size());
+	}
+
+	private ServletWebRequest request() {
+		return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+	}
 }
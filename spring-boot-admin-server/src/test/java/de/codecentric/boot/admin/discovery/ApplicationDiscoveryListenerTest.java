@@ -16,13 +16,25 @@
 package de.codecentric.boot.admin.discovery;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.cloud.client.DefaultServiceInstance;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
@@ -31,8 +43,10 @@ import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
 import org.springframework.cloud.client.discovery.event.ParentHeartbeatEvent;
 import org.springframework.context.ApplicationEventPublisher;
 
+import de.codecentric.boot.admin.event.ClientApplicationDeregisteredEvent;
 import de.codecentric.boot.admin.model.Application;
 import de.codecentric.boot.admin.registry.ApplicationRegistry;
+import de.codecentric.boot.admin.registry.BatchResult;
 import de.codecentric.boot.admin.registry.HashingApplicationUrlIdGenerator;
 import de.codecentric.boot.admin.registry.store.SimpleApplicationStore;
 
@@ -44,13 +58,18 @@ public class ApplicationDiscoveryListenerTest {
 
 	@Before
 	public void setup() {
-		registry = new ApplicationRegistry(new SimpleApplicationStore(),
-				new HashingApplicationUrlIdGenerator());
+		registry = spy(new ApplicationRegistry(new SimpleApplicationStore(),
+				new HashingApplicationUrlIdGenerator()));
 		registry.setApplicationEventPublisher(mock(ApplicationEventPublisher.class));
 		discovery = mock(DiscoveryClient.class);
 		listener = new ApplicationDiscoveryListener(discovery, registry);
 	}
 
+	@After
+	public void teardown() {
+		listener.destroy();
+	}
+
 	@Test
 	public void test_register_and_convert() {
 		when(discovery.getServices()).thenReturn(Collections.singletonList("service"));
@@ -107,4 +126,71 @@ public class ApplicationDiscoveryListenerTest {
 		assertEquals(1, registry.getApplications().size());
 	}
 
+	@Test
+	public void register_changed_instances_only() {
+		ServiceInstance instance1 = new DefaultServiceInstance("service", "localhost", 80, false);
+		ServiceInstance instance2 = new DefaultServiceInstance("service", "localhost", 81, false);
+		when(discovery.getServices()).thenReturn(Collections.singletonList("service"));
+		when(discovery.getInstances("service")).thenReturn(Arrays.asList(instance1, instance2));
+		listener.onApplicationEvent(new HeartbeatEvent(new Object(), new Object()));
+		assertEquals(2, registry.getApplications().size());
+
+		ServiceInstance instance3 = new DefaultServiceInstance("service", "localhost", 82, false);
+		when(discovery.getInstances("service")).thenReturn(Arrays.asList(instance1, instance3));
+		listener.onApplicationEvent(new HeartbeatEvent(new Object(), new Object()));
+
+		verify(registry).registerAll(Collections.singletonList(listener.convert(instance3)));
+		verify(registry).deregisterAll(anyListOf(String.class));
+		assertEquals(2, registry.getApplications().size());
+		for (Application application : registry.getApplications()) {
+			assertFalse(application.getHealthUrl().contains(":81/"));
+		}
+	}
+
+	@Test
+	public void keep_instances_of_failing_service() {
+		when(discovery.getServices()).thenReturn(Collections.singletonList("service"));
+		when(discovery.getInstances("service")).thenReturn(
+				Collections.singletonList((ServiceInstance) new DefaultServiceInstance("service",
+						"localhost", 80, false)));
+		listener.onApplicationEvent(new HeartbeatEvent(new Object(), new Object()));
+
+		when(discovery.getInstances("service")).thenThrow(new IllegalStateException("down"));
+		listener.onApplicationEvent(new HeartbeatEvent(new Object(), new Object()));
+		assertEquals(1, registry.getApplications().size());
+		verify(registry, never()).deregisterAll(anyListOf(String.class));
+
+		when(discovery.getServices()).thenReturn(Collections.<String> emptyList());
+		listener.onApplicationEvent(new HeartbeatEvent(new Object(), new Object()));
+		assertEquals(0, registry.getApplications().size());
+	}
+
+	@Test
+	public void register_again_if_deregistered_during_discovery() {
+		ServiceInstance instance1 = new DefaultServiceInstance("service", "localhost", 80, false);
+		ServiceInstance instance2 = new DefaultServiceInstance("service", "localhost", 81, false);
+		when(discovery.getServices()).thenReturn(Collections.singletonList("service"));
+		when(discovery.getInstances("service")).thenReturn(Collections.singletonList(instance1));
+		listener.onApplicationEvent(new HeartbeatEvent(new Object(), new Object()));
+		final String id = registry.getApplications().iterator().next().getId();
+
+		// instance1 is deregistered by someone else while instance2 is registered
+		doAnswer(new Answer<List<BatchResult>>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public List<BatchResult> answer(InvocationOnMock invocation) throws Throwable {
+				listener.onApplicationDeregistered(new ClientApplicationDeregisteredEvent(
+						registry.deregister(id)));
+				return (List<BatchResult>) invocation.callRealMethod();
+			}
+		}).when(registry).registerAll(anyListOf(Application.class));
+		when(discovery.getInstances("service")).thenReturn(Arrays.asList(instance1, instance2));
+		listener.onApplicationEvent(new HeartbeatEvent(new Object(), new Object()));
+		assertEquals(1, registry.getApplications().size());
+
+		doCallRealMethod().when(registry).registerAll(anyListOf(Application.class));
+		listener.onApplicationEvent(new HeartbeatEvent(new Object(), new Object()));
+		assertEquals(2, registry.getApplications().size());
+	}
+
 }
@@ -19,12 +19,16 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.Test;
 
 import de.codecentric.boot.admin.event.ClientApplicationEvent;
 import de.codecentric.boot.admin.event.ClientApplicationRegisteredEvent;
+import de.codecentric.boot.admin.event.RemoteClientApplicationEvent;
 import de.codecentric.boot.admin.journal.store.SimpleJournaledEventStore;
 import de.codecentric.boot.admin.model.Application;
 
@@ -45,4 +49,43 @@ public class ApplicationEventJournalTest {
 		assertThat(event, sameInstance(emittedEvent));
 	}
 
+	@Test
+	public void test_listener() {
+		final List<Long> sequences = new ArrayList<>();
+		JournalListener listener = new JournalListener() {
+			@Override
+			public void onJournaled(ClientApplicationEvent event) {
+				sequences.add(event.getSequence());
+			}
+		};
+		Application application = Application.create("foo").withId("bar").build();
+
+		journal.addListener(listener);
+		journal.onClientApplicationEvent(new ClientApplicationRegisteredEvent(application));
+		journal.removeListener(listener);
+		journal.onClientApplicationEvent(new ClientApplicationRegisteredEvent(application));
+
+		// the listener sees the event after it was journaled
+		assertThat(sequences, is(Collections.singletonList(0L)));
+	}
+
+	@Test
+	public void test_remote_event() {
+		final List<ClientApplicationEvent> received = new ArrayList<>();
+		journal.addListener(new JournalListener() {
+			@Override
+			public void onJournaled(ClientApplicationEvent event) {
+				received.add(event);
+			}
+		});
+		ClientApplicationEvent event = new ClientApplicationRegisteredEvent(Application
+				.create("foo").withId("bar").build());
+
+		journal.onRemoteClientApplicationEvent(new RemoteClientApplicationEvent(event));
+
+		// passed on to the listeners, but journaled by the remote member only
+		assertThat(received, is(Collections.singletonList(event)));
+		assertThat(journal.getEvents().isEmpty(), is(true));
+	}
+
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.journal.store;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.codecentric.boot.admin.event.ClientApplicationEvent;
+import de.codecentric.boot.admin.event.ClientApplicationRegisteredEvent;
+import de.codecentric.boot.admin.event.ClientApplicationStatusChangedEvent;
+import de.codecentric.boot.admin.journal.JournalQuery;
+import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
+
+public class FileJournaledEventStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private FileJournaledEventStore store;
+
+	@Before
+	public void setup() throws IOException {
+		store = new FileJournaledEventStore(folder.getRoot(), 4096, 0);
+	}
+
+	@After
+	public void teardown() throws InterruptedException {
+		store.destroy();
+	}
+
+	@Test
+	public void test_store() {
+		Application application = Application.create("foo").withId("bar")
+				.withHealthUrl("http://health").withStatusInfo(StatusInfo.ofUp()).build();
+		ClientApplicationEvent registered = new ClientApplicationRegisteredEvent(application);
+		ClientApplicationEvent changed = new ClientApplicationStatusChangedEvent(application,
+				StatusInfo.ofUnknown(), StatusInfo.ofUp());
+		store.store(registered);
+		store.store(changed);
+
+		List<ClientApplicationEvent> events = new ArrayList<>(store.findAll());
+		assertThat(events.size(), is(2));
+		assertThat(events.get(0), is(instanceOf(ClientApplicationStatusChangedEvent.class)));
+		assertThat(events.get(0).getSequence(), is(1L));
+		assertThat(events.get(0).getTimestamp(), is(changed.getTimestamp()));
+		assertThat(events.get(0).getApplication(), is(application));
+		assertThat(((ClientApplicationStatusChangedEvent) events.get(0)).getTo().getStatus(),
+				is("UP"));
+		assertThat(events.get(1), is(instanceOf(ClientApplicationRegisteredEvent.class)));
+		assertThat(events.get(1).getSequence(), is(0L));
+	}
+
+	@Test
+	public void test_store_interrupted() {
+		Thread.currentThread().interrupt();
+		try {
+			store.store(new ClientApplicationRegisteredEvent(Application.create("foo")
+					.withId("bar").withHealthUrl("http://health").build()));
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException ex) {
+			// the caller can't rely on the event being written
+		} finally {
+			assertThat(Thread.interrupted(), is(true));
+		}
+	}
+
+	@Test
+	public void test_recover() throws IOException, InterruptedException {
+		storeEvents(200);
+		store.destroy();
+
+		store = new FileJournaledEventStore(folder.getRoot(), 4096, 0);
+		assertThat(store.findAll().size(), is(200));
+
+		ClientApplicationEvent event = createEvent("foo");
+		store.store(event);
+		assertThat(event.getSequence(), is(200L));
+	}
+
+	@Test
+	public void test_recover_corrupt() throws IOException, InterruptedException {
+		storeEvents(3);
+		store.destroy();
+
+		// damage the last event in the tail segment
+		File tail = folder.getRoot().listFiles()[0];
+		try (RandomAccessFile file = new RandomAccessFile(tail, "rw")) {
+			file.seek(file.length() - 1);
+			while (file.readByte() == 0) {
+				file.seek(file.getFilePointer() - 2);
+			}
+			file.seek(file.getFilePointer() - 1);
+			file.writeByte(0);
+		}
+
+		store = new FileJournaledEventStore(folder.getRoot(), 4096, 0);
+		assertThat(store.findAll().size(), is(2));
+		ClientApplicationEvent event = createEvent("foo");
+		store.store(event);
+		assertThat(event.getSequence(), is(2L));
+		assertThat(store.findAll().size(), is(3));
+	}
+
+	@Test
+	public void test_maxSegments() throws IOException, InterruptedException {
+		store.destroy();
+		store = new FileJournaledEventStore(folder.getRoot(), 4096, 2);
+		storeEvents(500);
+
+		assertThat(folder.getRoot().list().length <= 4, is(true));
+		List<ClientApplicationEvent> events = new ArrayList<>(store.findAll());
+		assertThat(events.get(0).getSequence(), is(499L));
+		assertThat(events.size() < 500, is(true));
+	}
+
+	@Test
+	public void test_find() {
+		storeEvents(500);
+
+		List<ClientApplicationEvent> page = new ArrayList<>(store.find(JournalQuery.create()
+				.withBefore(300L).withLimit(10).build()));
+		assertThat(page.size(), is(10));
+		assertThat(page.get(0).getSequence(), is(299L));
+		assertThat(page.get(9).getSequence(), is(290L));
+
+		List<ClientApplicationEvent> since = new ArrayList<>(store.find(JournalQuery.create()
+				.withAfter(495L).build()));
+		assertThat(since.size(), is(4));
+		assertThat(since.get(0).getSequence(), is(496L));
+	}
+
+	private void storeEvents(int count) {
+		for (int i = 0; i < count; i++) {
+			store.store(createEvent("app-" + (i % 10)));
+		}
+	}
+
+	private ClientApplicationEvent createEvent(String id) {
+		return new ClientApplicationRegisteredEvent(Application.create("foo").withId(id)
+				.withHealthUrl("http://" + id + "/health").build());
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.journal.store;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+
+import de.codecentric.boot.admin.config.HazelcastStoreConfiguration;
+import de.codecentric.boot.admin.event.ClientApplicationEvent;
+import de.codecentric.boot.admin.event.ClientApplicationRegisteredEvent;
+import de.codecentric.boot.admin.event.ClientApplicationStatusChangedEvent;
+import de.codecentric.boot.admin.journal.JournalQuery;
+import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
+
+public class HazelcastJournaledEventStoreTest {
+
+	private static HazelcastInstance hazelcast;
+
+	private IMap<Long, ClientApplicationEvent> map;
+	private HazelcastJournaledEventStore store;
+
+	@BeforeClass
+	public static void startHazelcast() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		HazelcastStoreConfiguration.registerSerializers(config.getSerializationConfig());
+		hazelcast = Hazelcast.newHazelcastInstance(config);
+	}
+
+	@AfterClass
+	public static void stopHazelcast() {
+		hazelcast.shutdown();
+	}
+
+	@Before
+	public void setup() {
+		map = hazelcast.getMap("events");
+		map.clear();
+		hazelcast.getAtomicLong("events-sequence").set(0L);
+		store = new HazelcastJournaledEventStore(map, hazelcast.getAtomicLong("events-sequence"),
+				100);
+	}
+
+	@Test
+	public void test_store() {
+		List<ClientApplicationEvent> events = storeEvents(3);
+
+		List<ClientApplicationEvent> found = new ArrayList<>(store.findAll());
+		assertThat(found.size(), is(3));
+		assertThat(found.get(0).getSequence(), is(2L));
+		assertThat(found.get(0).getApplication(), is(events.get(2).getApplication()));
+		assertThat(found.get(2).getSequence(), is(0L));
+	}
+
+	@Test
+	public void test_serialization() {
+		Application application = Application.create("foo").withId("bar")
+				.withHealthUrl("http://health").withStatusInfo(StatusInfo.ofUp()).build();
+		ClientApplicationStatusChangedEvent event = new ClientApplicationStatusChangedEvent(
+				application, StatusInfo.ofDown(), StatusInfo.ofUp());
+		store.store(event);
+
+		ClientApplicationStatusChangedEvent found = (ClientApplicationStatusChangedEvent) map
+				.get(0L);
+		assertThat(found.getSequence(), is(0L));
+		assertThat(found.getTimestamp(), is(event.getTimestamp()));
+		assertThat(found.getApplication(), is(application));
+		assertThat(found.getApplication().getStatusInfo(), is(application.getStatusInfo()));
+		assertThat(found.getFrom(), is(event.getFrom()));
+		assertThat(found.getTo(), is(event.getTo()));
+	}
+
+	@Test
+	public void test_find() {
+		storeEvents(50);
+
+		List<ClientApplicationEvent> page = new ArrayList<>(store.find(JournalQuery.create()
+				.withBefore(20L).withLimit(5).build()));
+		assertThat(page.size(), is(5));
+		assertThat(page.get(0).getSequence(), is(19L));
+		assertThat(page.get(4).getSequence(), is(15L));
+
+		List<ClientApplicationEvent> since = new ArrayList<>(store.find(JournalQuery.create()
+				.withAfter(47L).build()));
+		assertThat(since.size(), is(2));
+		assertThat(since.get(0).getSequence(), is(48L));
+	}
+
+	@Test
+	public void test_capacity() {
+		storeEvents(250);
+
+		assertThat(store.findAll().size(), is(100));
+		// the events beyond the capacity are removed in batches of a tenth of it
+		assertThat(map.size() <= 110, is(true));
+	}
+
+	@Test
+	public void test_capacity_boundarySkipped() {
+		storeEvents(109);
+		// the member drawing the sequence at the batch boundary failed before storing
+		hazelcast.getAtomicLong("events-sequence").getAndIncrement();
+		storeEvents(10);
+
+		assertThat(map.containsKey(0L), is(false));
+		assertThat(map.size(), is(99));
+	}
+
+	private List<ClientApplicationEvent> storeEvents(int count) {
+		List<ClientApplicationEvent> events = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			ClientApplicationEvent event = new ClientApplicationRegisteredEvent(Application
+					.create("foo").withId("app-" + i).withHealthUrl("http://health").build());
+			store.store(event);
+			events.add(event);
+		}
+		return events;
+	}
+}
@@ -20,15 +20,18 @@ import static org.junit.Assert.assertThat;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import de.codecentric.boot.admin.event.ClientApplicationDeregisteredEvent;
 import de.codecentric.boot.admin.event.ClientApplicationEvent;
 import de.codecentric.boot.admin.event.ClientApplicationRegisteredEvent;
+import de.codecentric.boot.admin.journal.JournalQuery;
 import de.codecentric.boot.admin.model.Application;
 
 public class SimpleJournaledEventStoreTest {
@@ -49,6 +52,144 @@ public class SimpleJournaledEventStoreTest {
 		List<ClientApplicationEvent> reversed = new ArrayList<>(events);
 		Collections.reverse(reversed);
 
-		assertThat(store.findAll(), is((Collection<ClientApplicationEvent>) reversed));
+		assertThat(new ArrayList<>(store.findAll()), is(reversed));
+	}
+
+	@Test
+	public void test_maxEvents() {
+		store = new SimpleJournaledEventStore(3, 0, 0L);
+		List<ClientApplicationEvent> events = createEvents(5, "foo");
+
+		for (ClientApplicationEvent event : events) {
+			store.store(event);
+		}
+
+		assertThat(store.findAll().size(), is(3));
+		assertThat(new ArrayList<>(store.findAll()),
+				is(Arrays.asList(events.get(4), events.get(3), events.get(2))));
+	}
+
+	@Test
+	public void test_maxEventsPerApplication() {
+		store = new SimpleJournaledEventStore(10, 2, 0L);
+		List<ClientApplicationEvent> foo = createEvents(3, "foo");
+		List<ClientApplicationEvent> bar = createEvents(1, "bar");
+
+		store.store(bar.get(0));
+		for (ClientApplicationEvent event : foo) {
+			store.store(event);
+		}
+
+		assertThat(new ArrayList<>(store.findAll()),
+				is(Arrays.asList(foo.get(2), foo.get(1), bar.get(0))));
+	}
+
+	@Test
+	public void test_maxAge() throws InterruptedException {
+		store = new SimpleJournaledEventStore(10, 0, 50L);
+		ClientApplicationEvent old = createEvents(1, "foo").get(0);
+		store.store(old);
+		Thread.sleep(100L);
+		ClientApplicationEvent young = createEvents(1, "foo").get(0);
+		store.store(young);
+
+		assertThat(new ArrayList<>(store.findAll()),
+				is((List<ClientApplicationEvent>) Collections.singletonList(young)));
+	}
+
+	@Test
+	public void test_maxAge_evictedOnWrite() throws InterruptedException {
+		store = new SimpleJournaledEventStore(10, 0, 50L);
+		store.store(createEvents(1, "foo").get(0));
+		Thread.sleep(100L);
+		ClientApplicationEvent young = createEvents(1, "bar").get(0);
+		store.store(young);
+
+		assertThat(store.find(JournalQuery.create().withApplicationId("foo").build()).isEmpty(),
+				is(true));
+		assertThat(getIndexedApplications(), is(Collections.singleton("bar")));
+	}
+
+	@Test
+	public void test_overwritten_indexRemoved() {
+		store = new SimpleJournaledEventStore(2, 0, 0L);
+		store.store(createEvents(1, "foo").get(0));
+		for (ClientApplicationEvent event : createEvents(2, "bar")) {
+			store.store(event);
+		}
+
+		assertThat(getIndexedApplications(), is(Collections.singleton("bar")));
+
+		ClientApplicationEvent foo = createEvents(1, "foo").get(0);
+		store.store(foo);
+		assertThat(
+				new ArrayList<>(store.find(JournalQuery.create().withApplicationId("foo").build())),
+				is((List<ClientApplicationEvent>) Collections.singletonList(foo)));
+	}
+
+	@Test
+	public void test_sequence() {
+		List<ClientApplicationEvent> events = createEvents(3, "foo");
+		for (ClientApplicationEvent event : events) {
+			store.store(event);
+		}
+
+		assertThat(events.get(0).getSequence(), is(0L));
+		assertThat(events.get(2).getSequence(), is(2L));
+	}
+
+	@Test
+	public void test_find_paged() {
+		List<ClientApplicationEvent> events = createEvents(5, "foo");
+		for (ClientApplicationEvent event : events) {
+			store.store(event);
+		}
+
+		assertThat(new ArrayList<>(store.find(JournalQuery.create().withLimit(2).build())),
+				is(Arrays.asList(events.get(4), events.get(3))));
+		assertThat(
+				new ArrayList<>(store.find(JournalQuery.create().withBefore(3L).withLimit(2)
+						.build())), is(Arrays.asList(events.get(2), events.get(1))));
+		assertThat(new ArrayList<>(store.find(JournalQuery.create().withAfter(2L).build())),
+				is(Arrays.asList(events.get(3), events.get(4))));
+	}
+
+	@Test
+	public void test_find_filtered() {
+		store = new SimpleJournaledEventStore(4, 0, 0L);
+		List<ClientApplicationEvent> foo = createEvents(3, "foo");
+		List<ClientApplicationEvent> bar = createEvents(2, "bar");
+		store.store(foo.get(0));
+		store.store(bar.get(0));
+		store.store(foo.get(1));
+		store.store(bar.get(1));
+		store.store(foo.get(2));
+
+		// foo.get(0) was overwritten
+		assertThat(
+				new ArrayList<>(store.find(JournalQuery.create().withApplicationId("foo").build())),
+				is(Arrays.asList(foo.get(2), foo.get(1))));
+		assertThat(
+				new ArrayList<>(store.find(JournalQuery.create().withApplicationId("bar")
+						.withAfter(1L).build())), is(Arrays.asList(bar.get(1))));
+		assertThat(store.find(JournalQuery.create().withType("DEREGISTRATION").build()).isEmpty(),
+				is(true));
+		assertThat(
+				store.find(JournalQuery.create().withTo(foo.get(0).getTimestamp()).build())
+						.isEmpty(), is(true));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<String> getIndexedApplications() {
+		return ((Map<String, ?>) ReflectionTestUtils.getField(store, "applications")).keySet();
+	}
+
+	private List<ClientApplicationEvent> createEvents(int count, String id) {
+		Application application = Application.create("foo").withId(id).build();
+		List<ClientApplicationEvent> events = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			events.add(new ClientApplicationRegisteredEvent(application));
+		}
+		return events;
 	}
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import de.codecentric.boot.admin.event.ClientApplicationDeregisteredEvent;
+import de.codecentric.boot.admin.event.ClientApplicationRegisteredEvent;
+import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.registry.store.SimpleApplicationStore;
+
+public class ApplicationChangeLogTest {
+
+	private SimpleApplicationStore store;
+	private ApplicationRegistry registry;
+	private ApplicationChangeLog changeLog;
+
+	@Before
+	public void setup() {
+		store = new SimpleApplicationStore();
+		registry = new ApplicationRegistry(store, new HashingApplicationUrlIdGenerator());
+		registry.setApplicationEventPublisher(mock(ApplicationEventPublisher.class));
+		changeLog = new ApplicationChangeLog(registry, 2);
+	}
+
+	@Test
+	public void test_changes() {
+		String version = currentVersion();
+		Application foo = register("foo");
+		Application bar = register("bar");
+
+		ApplicationChanges changes = changeLog.getChangesSince(version);
+		assertThat(changes.isFull(), is(false));
+		assertThat(changes.getApplications(), hasSize(2));
+		assertThat(changes.getVersion(), is(currentVersion()));
+
+		version = changes.getVersion();
+		registry.deregister(foo.getId());
+		changeLog.onClientApplicationEvent(new ClientApplicationDeregisteredEvent(foo));
+
+		changes = changeLog.getChangesSince(version);
+		assertThat(changes.isFull(), is(false));
+		assertThat(changes.getApplications(), is(empty()));
+		assertThat(changes.getRemoved(), contains(foo.getId()));
+
+		changes = changeLog.getChangesSince(changes.getVersion());
+		assertThat(changes.getApplications(), is(empty()));
+		assertThat(changes.getRemoved(), is(empty()));
+		assertThat(registry.getApplication(bar.getId()), is(bar));
+	}
+
+	@Test
+	public void test_evicted() {
+		String version = currentVersion();
+		register("foo");
+		String afterFoo = currentVersion();
+		register("bar");
+		register("baz");
+
+		// the change of foo was evicted
+		ApplicationChanges changes = changeLog.getChangesSince(version);
+		assertThat(changes.isFull(), is(true));
+		assertThat(changes.getApplications(), hasSize(3));
+
+		assertThat(changeLog.getChangesSince(afterFoo).isFull(), is(false));
+	}
+
+	@Test
+	public void test_unseenModification() {
+		String version = currentVersion();
+		register("foo");
+		String afterFoo = currentVersion();
+		// saved without the event reaching the change log
+		store.save(Application.create("bar").withId("bar").withHealthUrl("http://bar").build());
+		String afterBar = currentVersion();
+
+		assertThat(changeLog.getChangesSince(version).isFull(), is(true));
+
+		register("baz");
+		assertThat(changeLog.getChangesSince(afterFoo).isFull(), is(true));
+		assertThat(changeLog.getChangesSince(afterBar).isFull(), is(false));
+	}
+
+	@Test
+	public void test_restarted() {
+		register("foo");
+		String version = currentVersion();
+		// the registry of a restarted server may reach the same version again
+		changeLog = new ApplicationChangeLog(registry, 2);
+		register("bar");
+
+		ApplicationChanges changes = changeLog.getChangesSince(version);
+		assertThat(changes.isFull(), is(true));
+		assertThat(changes.getApplications(), hasSize(2));
+
+		assertThat(changeLog.getChangesSince("foo").isFull(), is(true));
+	}
+
+	private String currentVersion() {
+		return changeLog.getChangesSince(null).getVersion();
+	}
+
+	private Application register(String name) {
+		Application application = registry.register(Application.create(name)
+				.withHealthUrl("http://" + name + "/health").build());
+		changeLog.onClientApplicationEvent(new ClientApplicationRegisteredEvent(application));
+		return application;
+	}
+}
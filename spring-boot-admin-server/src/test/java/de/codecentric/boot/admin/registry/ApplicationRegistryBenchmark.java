@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+
+import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.registry.store.SimpleApplicationStore;
+
+/**
+ * Measures the registrations per second with all clients being registered already. The
+ * <code>refresh</code> benchmark re-registers unchanged applications, as the clients do
+ * periodically; the <code>update</code> benchmark alternates the service url of each application,
+ * so each registration has to be validated and stored.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec
+ * -Dbenchmark=de.codecentric.boot.admin.registry.ApplicationRegistryBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApplicationRegistryBenchmark {
+
+	@Param("10000")
+	private int clients;
+
+	private ApplicationRegistry registry;
+	private Application[] applications;
+	private Application[] updatedApplications;
+	private int next;
+
+	@Setup
+	public void setup() {
+		registry = new ApplicationRegistry(new SimpleApplicationStore(),
+				new HashingApplicationUrlIdGenerator());
+		registry.setApplicationEventPublisher(Mockito.mock(ApplicationEventPublisher.class));
+
+		applications = new Application[clients];
+		updatedApplications = new Application[clients];
+		for (int i = 0; i < clients; i++) {
+			applications[i] = Application.create("app-" + i)
+					.withHealthUrl("http://host-" + i + ":8080/health")
+					.withManagementUrl("http://host-" + i + ":8080")
+					.withServiceUrl("http://host-" + i + ":8080/").build();
+			updatedApplications[i] = Application.create(applications[i])
+					.withServiceUrl("http://host-" + i + ":8080/service/").build();
+			registry.register(applications[i]);
+		}
+	}
+
+	@Benchmark
+	public Application refresh() {
+		next = (next + 1) % clients;
+		return registry.register(applications[next]);
+	}
+
+	@Benchmark
+	public Application update() {
+		next = (next + 1) % (2 * clients);
+		return registry.register(next < clients ? updatedApplications[next]
+				: applications[next - clients]);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(
+				ApplicationRegistryBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
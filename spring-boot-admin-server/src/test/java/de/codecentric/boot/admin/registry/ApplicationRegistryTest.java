@@ -20,13 +20,19 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
 import de.codecentric.boot.admin.registry.store.SimpleApplicationStore;
 
 public class ApplicationRegistryTest {
@@ -80,6 +86,61 @@ public class ApplicationRegistryTest {
 		assertNotNull(app.getId());
 	}
 
+	@Test
+	public void register_refresh() throws Exception {
+		SimpleApplicationStore store = Mockito.spy(new SimpleApplicationStore());
+		ApplicationRegistry registry = new ApplicationRegistry(store,
+				new HashingApplicationUrlIdGenerator());
+		registry.setApplicationEventPublisher(Mockito.mock(ApplicationEventPublisher.class));
+		Application application = Application.create("abc")
+				.withHealthUrl("http://localhost:8080/health").build();
+
+		Application registered = registry.register(application);
+		store.updateStatus(registered.getId(), StatusInfo.ofUp());
+		Application refreshed = registry.register(application);
+
+		assertEquals(registered, refreshed);
+		assertEquals("UP", refreshed.getStatusInfo().getStatus());
+		Mockito.verify(store, Mockito.times(1)).save(Mockito.any(Application.class));
+
+		registry.deregister(registered.getId());
+		registry.register(application);
+		Mockito.verify(store, Mockito.times(2)).save(Mockito.any(Application.class));
+	}
+
+	@Test
+	public void register_changed() throws Exception {
+		Application application = registry.register(Application.create("abc")
+				.withHealthUrl("http://localhost:8080/health").build());
+		registry.register(Application.create("xyz").withHealthUrl("http://localhost:8080/health")
+				.build());
+
+		// the outdated registration is forgotten
+		assertEquals(1, ((Map<?, ?>) ReflectionTestUtils.getField(registry, "registeredIds"))
+				.size());
+
+		registry.deregister(application.getId());
+		assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(registry, "registeredIds"))
+				.isEmpty());
+	}
+
+	@Test
+	public void registerAll_refresh() throws Exception {
+		SimpleApplicationStore store = Mockito.spy(new SimpleApplicationStore());
+		ApplicationRegistry registry = new ApplicationRegistry(store,
+				new HashingApplicationUrlIdGenerator());
+		registry.setApplicationEventPublisher(Mockito.mock(ApplicationEventPublisher.class));
+		Application application = Application.create("abc")
+				.withHealthUrl("http://localhost:8080/health").build();
+
+		registry.registerAll(Collections.singletonList(application));
+		Mockito.verify(store, Mockito.times(1)).save(Mockito.any(Application.class));
+		registry.register(application);
+
+		// answered without writing the store again
+		Mockito.verify(store, Mockito.times(1)).save(Mockito.any(Application.class));
+	}
+
 	@Test
 	public void getApplication() throws Exception {
 		Application app = registry.register(Application.create("abc")
@@ -114,4 +175,39 @@ public class ApplicationRegistryTest {
 		assertTrue(applications.contains(app2));
 		assertFalse(applications.contains(app3));
 	}
+
+	@Test
+	public void registerAll() throws Exception {
+		Application existing = registry.register(Application.create("abc")
+				.withHealthUrl("http://localhost/health").build());
+
+		List<BatchResult> results = registry.registerAll(Arrays.asList(
+				Application.create("abc").withHealthUrl("http://localhost/health").build(),
+				Application.create("abc").withHealthUrl("not-a-url").build(),
+				Application.create("xyz").withHealthUrl("http://localhost:8081/health").build()));
+
+		assertEquals(3, results.size());
+		assertTrue(results.get(0).isSuccess());
+		assertEquals(existing, results.get(0).getApplication());
+		assertFalse(results.get(1).isSuccess());
+		assertEquals("Health-URL is not valid", results.get(1).getError());
+		assertTrue(results.get(2).isSuccess());
+		assertEquals(results.get(2).getApplication(),
+				registry.getApplication(results.get(2).getId()));
+		assertEquals(2, registry.getApplications().size());
+	}
+
+	@Test
+	public void deregisterAll() throws Exception {
+		Application app = registry.register(Application.create("abc")
+				.withHealthUrl("http://localhost/health").build());
+
+		List<BatchResult> results = registry.deregisterAll(Arrays.asList(app.getId(), "unknown"));
+
+		assertEquals(2, results.size());
+		assertEquals(app, results.get(0).getApplication());
+		assertFalse(results.get(1).isSuccess());
+		assertEquals("unknown", results.get(1).getId());
+		assertTrue(registry.getApplications().isEmpty());
+	}
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class StatusUpdateScheduleTest {
+
+	private StatusUpdateSchedule schedule = new StatusUpdateSchedule();
+
+	@Test
+	public void test_pollDue() {
+		schedule.schedule("c", 300L);
+		schedule.schedule("a", 100L);
+		schedule.schedule("b", 200L);
+
+		assertThat(schedule.pollDue(50L).isEmpty(), is(true));
+		assertThat(schedule.pollDue(200L), is(Arrays.asList("a", "b")));
+		assertThat(schedule.size(), is(1));
+		assertThat(schedule.pollDue(1000L), is(Collections.singletonList("c")));
+		assertThat(schedule.size(), is(0));
+	}
+
+	@Test
+	public void test_reschedule() {
+		schedule.schedule("a", 100L);
+		schedule.schedule("a", 500L);
+
+		assertThat(schedule.pollDue(200L).isEmpty(), is(true));
+		assertThat(schedule.getDeadline("a"), is(500L));
+		assertThat(schedule.scheduleIfAbsent("a", 100L), is(false));
+		assertThat(schedule.pollDue(500L), is(Collections.singletonList("a")));
+	}
+
+	@Test
+	public void test_cancel() {
+		schedule.schedule("a", 100L);
+
+		assertThat(schedule.cancel("a"), is(true));
+		assertThat(schedule.cancel("a"), is(false));
+		assertThat(schedule.getDeadline("a"), is(nullValue()));
+		assertThat(schedule.pollDue(1000L).isEmpty(), is(true));
+	}
+}
@@ -2,26 +2,44 @@ package de.codecentric.boot.admin.registry;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.isA;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import de.codecentric.boot.admin.event.ClientApplicationStatusChangedEvent;
 import de.codecentric.boot.admin.model.Application;
 import de.codecentric.boot.admin.model.StatusInfo;
+import de.codecentric.boot.admin.registry.store.ApplicationStore;
 import de.codecentric.boot.admin.registry.store.SimpleApplicationStore;
 
 public class StatusUpdaterTest {
@@ -45,7 +63,8 @@ public class StatusUpdaterTest {
 		when(template.getForEntity("health", Map.class)).thenReturn(
 				ResponseEntity.ok().body((Map) Collections.singletonMap("status", "UP")));
 
-		updater.updateStatus(Application.create("foo").withId("id").withHealthUrl("health").build());
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
 
 		Application app = store.find("id");
 
@@ -58,8 +77,37 @@ public class StatusUpdaterTest {
 		when(template.getForEntity("health", Map.class)).thenReturn(
 				ResponseEntity.ok((Map) Collections.singletonMap("status", "UNKNOWN")));
 
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
+
+		verify(publisher, never()).publishEvent(
+				argThat(isA(ClientApplicationStatusChangedEvent.class)));
+	}
+
+	@Test
+	public void test_update_statusUnchanged_notWritten() {
+		ApplicationStore mockStore = mock(ApplicationStore.class);
+		updater = new StatusUpdater(template, mockStore);
+		updater.setApplicationEventPublisher(publisher);
+		when(template.getForEntity("health", Map.class)).thenReturn(
+				ResponseEntity.ok((Map) Collections.singletonMap("status", "UP")));
+
+		updater.updateStatus(Application.create("foo").withId("id").withHealthUrl("health")
+				.withStatusInfo(StatusInfo.valueOf("UP", 0L)).build());
+
+		verify(mockStore, never()).save(any(Application.class));
+		verify(mockStore, never()).updateStatus(anyString(), any(StatusInfo.class));
+		assertThat(updater.getLastChecked("id") > 0L, is(true));
+	}
+
+	@Test
+	public void test_update_deregistered() {
+		when(template.getForEntity("health", Map.class)).thenReturn(
+				ResponseEntity.ok((Map) Collections.singletonMap("status", "UP")));
+
 		updater.updateStatus(Application.create("foo").withId("id").withHealthUrl("health").build());
 
+		assertThat(store.find("id"), nullValue());
 		verify(publisher, never()).publishEvent(
 				argThat(isA(ClientApplicationStatusChangedEvent.class)));
 	}
@@ -69,7 +117,8 @@ public class StatusUpdaterTest {
 		// HTTP 200 - UP
 		when(template.getForEntity("health", Map.class)).thenReturn(ResponseEntity.ok((Map) null));
 
-		updater.updateStatus(Application.create("foo").withId("id").withHealthUrl("health").build());
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
 
 		assertThat(store.find("id").getStatusInfo().getStatus(), is("UP"));
 
@@ -77,7 +126,8 @@ public class StatusUpdaterTest {
 		when(template.getForEntity("health", Map.class)).thenReturn(
 				ResponseEntity.status(503).body((Map) null));
 
-		updater.updateStatus(Application.create("foo").withId("id").withHealthUrl("health").build());
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
 
 		assertThat(store.find("id").getStatusInfo().getStatus(), is("DOWN"));
 	}
@@ -87,7 +137,8 @@ public class StatusUpdaterTest {
 		when(template.getForEntity("health", Map.class)).thenThrow(
 				new ResourceAccessException("error"));
 
-		updater.updateStatus(Application.create("foo").withId("id").withHealthUrl("health").build());
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
 
 		assertThat(store.find("id").getStatusInfo().getStatus(), is("OFFLINE"));
 	}
@@ -110,4 +161,314 @@ public class StatusUpdaterTest {
 		verify(template, never()).getForEntity("health-1", Map.class);
 	}
 
+	@Test
+	public void test_updateStatusForApplications_scheduled() {
+		when(template.getForEntity("health", Map.class)).thenReturn(
+				ResponseEntity.ok((Map) Collections.singletonMap("status", "UP")));
+		Application app = Application.create("foo").withId("id").withHealthUrl("health").build();
+		updater.setStatusLifetime(0L);
+		updater.updateStatus(store(app));
+
+		store.delete("id");
+		updater.cancelUpdates("id");
+		updater.updateStatusForAllApplications();
+		updater.updateStatusForAllApplications();
+
+		verify(template, times(1)).getForEntity("health", Map.class);
+	}
+
+	@Test
+	public void test_updateStatusForApplications_localOnly() {
+		store = spy(new SimpleApplicationStore());
+		updater = new StatusUpdater(template, store);
+		updater.setApplicationEventPublisher(publisher);
+		updater.setStatusLifetime(0L);
+		Application local = store(Application.create("foo").withId("id-1")
+				.withHealthUrl("health-1").withStatusInfo(StatusInfo.valueOf("UP", 0L)).build());
+		Application remote = store(Application.create("foo").withId("id-2")
+				.withHealthUrl("health-2").withStatusInfo(StatusInfo.valueOf("UP", 0L)).build());
+		doReturn(Collections.singletonList(local)).when(store).findAllLocal();
+		doReturn(false).when(store).isLocal("id-2");
+		when(template.getForEntity(anyString(), eq(Map.class))).thenReturn(
+				ResponseEntity.ok((Map) Collections.singletonMap("status", "UP")));
+
+		// registered at this member, but owned by another one
+		updater.updateStatus(remote);
+		updater.updateStatusForAllApplications();
+
+		verify(template, timeout(5000).times(1)).getForEntity("health-1", Map.class);
+		verify(template, times(1)).getForEntity("health-2", Map.class);
+		assertThat(updater.getNextUpdate("id-2"), nullValue());
+	}
+
+	@Test
+	public void test_updateStatusForApplications_concurrent() {
+		// expired stati are due immediately without status lifetime
+		updater.setStatusLifetime(0L);
+		updater.setParallelism(2);
+		store.save(Application.create("foo").withId("id-1").withHealthUrl("health-1")
+				.withStatusInfo(StatusInfo.valueOf("UP", 0L)).build());
+		store.save(Application.create("foo").withId("id-2").withHealthUrl("health-2")
+				.withStatusInfo(StatusInfo.valueOf("UP", 0L)).build());
+
+		// each check only completes when both are running at the same time
+		final CountDownLatch running = new CountDownLatch(2);
+		when(template.getForEntity(anyString(), eq(Map.class))).thenAnswer(
+				new Answer<ResponseEntity<Map>>() {
+					@Override
+					public ResponseEntity<Map> answer(InvocationOnMock invocation)
+							throws Throwable {
+						running.countDown();
+						running.await(5, TimeUnit.SECONDS);
+						return ResponseEntity.ok((Map) Collections.singletonMap("status", "DOWN"));
+					}
+				});
+
+		updater.updateStatusForAllApplications();
+
+		verify(publisher, timeout(5000).times(2)).publishEvent(
+				argThat(isA(ClientApplicationStatusChangedEvent.class)));
+		assertThat(running.getCount(), is(0L));
+		assertThat(store.find("id-1").getStatusInfo().getStatus(), is("DOWN"));
+		assertThat(store.find("id-2").getStatusInfo().getStatus(), is("DOWN"));
+		assertThat(updater.getLastSweepChecks(), is(2));
+	}
+
+	@Test
+	public void test_updateStatusForApplications_rejected() throws Exception {
+		updater.setStatusLifetime(0L);
+		updater.setParallelism(1);
+		store.save(Application.create("foo").withId("id").withHealthUrl("health")
+				.withStatusInfo(StatusInfo.valueOf("UP", 0L)).build());
+		// the executor rejects all checks after being shut down
+		updater.destroy();
+
+		updater.updateStatusForAllApplications();
+		assertThat(updater.getLastSweepChecks(), is(1));
+		assertThat(updater.getInFlightChecks(), is(0));
+		assertThat(updater.getNextUpdate("id") != null, is(true));
+
+		// the permit was released, so the next sweep can start the check again
+		updater.updateStatusForAllApplications();
+		assertThat(updater.getLastSweepChecks(), is(1));
+		assertThat(updater.getLastSweepDeferred(), is(0));
+	}
+
+	@Test
+	public void test_interval_adaptive() {
+		when(template.getForEntity("health", Map.class)).thenReturn(
+				ResponseEntity.ok((Map) Collections.singletonMap("status", "UP")));
+		updater.setAdaptive(true);
+		updater.setStatusLifetime(30_000L);
+		updater.setMinStatusLifetime(10_000L);
+		updater.setMaxStatusLifetime(100_000L);
+
+		// newly registered
+		assertThat(updater.getInterval("id"), is(10_000L));
+
+		Application app = Application.create("foo").withId("id").withHealthUrl("health").build();
+		updater.updateStatus(store(app));
+		assertThat(updater.getInterval("id"), is(10_000L));
+
+		updater.updateStatus(store.find("id"));
+		assertThat(updater.getInterval("id"), is(30_000L));
+		updater.updateStatus(store.find("id"));
+		assertThat(updater.getInterval("id"), is(60_000L));
+		updater.updateStatus(store.find("id"));
+		assertThat(updater.getInterval("id"), is(100_000L));
+
+		// down
+		when(template.getForEntity("health", Map.class)).thenReturn(
+				ResponseEntity.ok((Map) Collections.singletonMap("status", "DOWN")));
+		updater.updateStatus(store.find("id"));
+		assertThat(updater.getInterval("id"), is(10_000L));
+
+		// flapping
+		when(template.getForEntity("health", Map.class))
+				.thenReturn(ResponseEntity.ok((Map) Collections.singletonMap("status", "UP")))
+				.thenReturn(ResponseEntity.ok((Map) Collections.singletonMap("status", "DOWN")))
+				.thenReturn(ResponseEntity.ok((Map) Collections.singletonMap("status", "UP")));
+		updater.updateStatus(store.find("id"));
+		updater.updateStatus(store.find("id"));
+		updater.updateStatus(store.find("id"));
+		updater.updateStatus(store.find("id"));
+		assertThat(updater.getInterval("id"), is(10_000L));
+		updater.updateStatus(store.find("id"));
+		assertThat(updater.getInterval("id"), is(10_000L));
+		updater.updateStatus(store.find("id"));
+		assertThat(updater.getInterval("id"), is(30_000L));
+	}
+
+	@Test
+	public void test_interval_fixed() {
+		when(template.getForEntity("health", Map.class)).thenReturn(
+				ResponseEntity.ok((Map) Collections.singletonMap("status", "UP")));
+		updater.setStatusLifetime(30_000L);
+
+		Application app = Application.create("foo").withId("id").withHealthUrl("health").build();
+		updater.updateStatus(store(app));
+		updater.updateStatus(store.find("id"));
+
+		assertThat(updater.getInterval("id"), is(30_000L));
+	}
+
+	@Test
+	public void test_interval_offline_backoff() throws Exception {
+		when(template.getForEntity("health", Map.class)).thenThrow(
+				new ResourceAccessException("error"));
+		when(template.headForHeaders("health")).thenReturn(new HttpHeaders());
+		updater.setStatusLifetime(0L);
+
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
+		assertThat(updater.isCircuitOpen("id"), is(true));
+
+		// the probes succeed, so the health endpoint is queried on sweeps 1, 2, 4 and 8
+		for (int i = 0; i < 8; i++) {
+			updater.updateStatusForAllApplications();
+			awaitChecks();
+			assertThat(updater.getInterval("id"), is(0L));
+		}
+		verify(template, times(5)).getForEntity("health", Map.class);
+		verify(template, times(8)).headForHeaders("health");
+
+		// recovered
+		doReturn(ResponseEntity.ok((Map) Collections.singletonMap("status", "UP"))).when(template)
+				.getForEntity("health", Map.class);
+		for (int i = 0; i < 8 && updater.isCircuitOpen("id"); i++) {
+			updater.updateStatusForAllApplications();
+			awaitChecks();
+		}
+		assertThat(updater.isCircuitOpen("id"), is(false));
+		assertThat(store.find("id").getStatusInfo().getStatus(), is("UP"));
+	}
+
+	@Test
+	public void test_updateStatusForApplications_probeFailed() throws Exception {
+		when(template.getForEntity("health", Map.class)).thenThrow(
+				new ResourceAccessException("error"));
+		when(template.headForHeaders("health")).thenThrow(new ResourceAccessException("error"));
+		updater.setStatusLifetime(0L);
+
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
+		updater.updateStatusForAllApplications();
+		awaitChecks();
+
+		assertThat(updater.getLastSweepChecks(), is(1));
+		assertThat(store.find("id").getStatusInfo().getStatus(), is("OFFLINE"));
+		verify(template, times(1)).getForEntity("health", Map.class);
+	}
+
+	@Test
+	public void test_updateStatusForApplications_probeTimeout() throws Exception {
+		when(template.getForEntity("health", Map.class)).thenThrow(
+				new ResourceAccessException("error"));
+		when(template.headForHeaders("health")).thenAnswer(new Answer<HttpHeaders>() {
+			@Override
+			public HttpHeaders answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep(5_000L);
+				return new HttpHeaders();
+			}
+		});
+		updater.setStatusLifetime(0L);
+		updater.setProbeTimeout(50);
+
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
+		updater.updateStatusForAllApplications();
+		awaitChecks();
+
+		assertThat(store.find("id").getStatusInfo().getStatus(), is("OFFLINE"));
+		verify(template, times(1)).getForEntity("health", Map.class);
+	}
+
+	@Test
+	public void test_updateStatusForApplications_probeSucceeded() throws Exception {
+		when(template.getForEntity("health", Map.class)).thenThrow(
+				new ResourceAccessException("error")).thenReturn(
+				ResponseEntity.ok((Map) Collections.singletonMap("status", "UP")));
+		// any response tells the application is reachable
+		when(template.headForHeaders("health")).thenThrow(
+				new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+		updater.setStatusLifetime(0L);
+
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
+		updater.updateStatusForAllApplications();
+		awaitChecks();
+
+		assertThat(store.find("id").getStatusInfo().getStatus(), is("UP"));
+		verify(publisher, times(2)).publishEvent(
+				argThat(isA(ClientApplicationStatusChangedEvent.class)));
+	}
+
+	@Test
+	public void test_updateStatusForApplications_probeDisabled() throws Exception {
+		when(template.getForEntity("health", Map.class)).thenThrow(
+				new ResourceAccessException("error"));
+		updater.setStatusLifetime(0L);
+		updater.setProbeOffline(false);
+
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
+		for (int i = 0; i < 3; i++) {
+			updater.updateStatusForAllApplications();
+			awaitChecks();
+		}
+
+		verify(template, times(4)).getForEntity("health", Map.class);
+		verify(template, never()).headForHeaders(anyString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_probeTimeout_invalid() {
+		updater.setProbeTimeout(0);
+	}
+
+	private Application store(Application application) {
+		store.save(application);
+		return application;
+	}
+
+	private void awaitChecks() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000L;
+		while (updater.getInFlightChecks() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10L);
+		}
+	}
+
+	@Test
+	public void test_update_async() {
+		AsyncRestTemplate asyncTemplate = mock(AsyncRestTemplate.class);
+		updater = new StatusUpdater(asyncTemplate, store);
+		updater.setApplicationEventPublisher(publisher);
+
+		SettableListenableFuture<ResponseEntity<Map<String, String>>> response = new SettableListenableFuture<>();
+		response.set(ResponseEntity.ok(Collections.singletonMap("status", "UP")));
+		doReturn(response).when(asyncTemplate).getForEntity("health", Map.class);
+
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
+
+		assertThat(store.find("id").getStatusInfo().getStatus(), is("UP"));
+		verify(publisher).publishEvent(argThat(isA(ClientApplicationStatusChangedEvent.class)));
+	}
+
+	@Test
+	public void test_update_async_offline() {
+		AsyncRestTemplate asyncTemplate = mock(AsyncRestTemplate.class);
+		updater = new StatusUpdater(asyncTemplate, store);
+		updater.setApplicationEventPublisher(publisher);
+
+		SettableListenableFuture<ResponseEntity<Map<String, String>>> response = new SettableListenableFuture<>();
+		response.setException(new ResourceAccessException("error"));
+		doReturn(response).when(asyncTemplate).getForEntity("health", Map.class);
+
+		updater.updateStatus(store(Application.create("foo").withId("id").withHealthUrl("health")
+				.build()));
+
+		assertThat(store.find("id").getStatusInfo().getStatus(), is("OFFLINE"));
+	}
+
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Aggregator;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.util.ListStatistics;
+import org.openjdk.jmh.util.Statistics;
+
+import com.hazelcast.core.IMap;
+
+/**
+ * JMH-profiler reporting the memory used per entry of a Hazelcast-map after each iteration, as
+ * secondary result <code>bytes-per-entry</code>. The benchmark hands the map in with
+ * {@link #setMap(IMap)}.
+ */
+public class EntryCostProfiler implements InternalProfiler {
+
+	private static volatile IMap<?, ?> map;
+
+	public static void setMap(IMap<?, ?> map) {
+		EntryCostProfiler.map = map;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Memory used per entry of a Hazelcast-map";
+	}
+
+	@Override
+	public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+	}
+
+	@Override
+	public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+			IterationParams iterationParams, IterationResult result) {
+		IMap<?, ?> current = map;
+		if (current == null || current.isEmpty()) {
+			return Collections.emptyList();
+		}
+		double cost = (double) current.getLocalMapStats().getOwnedEntryMemoryCost()
+				/ current.size();
+		return Collections.singletonList(new EntryCostResult(new ListStatistics(
+				new double[] { cost })));
+	}
+
+	private static class EntryCostResult extends Result<EntryCostResult> {
+		private static final long serialVersionUID = 1L;
+
+		private EntryCostResult(Statistics statistics) {
+			super(ResultRole.SECONDARY, "bytes-per-entry", statistics, "bytes",
+					AggregationPolicy.AVG);
+		}
+
+		@Override
+		protected Aggregator<EntryCostResult> getThreadAggregator() {
+			return new EntryCostAggregator();
+		}
+
+		@Override
+		protected Aggregator<EntryCostResult> getIterationAggregator() {
+			return new EntryCostAggregator();
+		}
+	}
+
+	private static class EntryCostAggregator implements Aggregator<EntryCostResult> {
+		@Override
+		public EntryCostResult aggregate(Collection<EntryCostResult> results) {
+			ListStatistics statistics = new ListStatistics();
+			for (EntryCostResult result : results) {
+				statistics.addValue(result.getScore());
+			}
+			return new EntryCostResult(statistics);
+		}
+	}
+
+}
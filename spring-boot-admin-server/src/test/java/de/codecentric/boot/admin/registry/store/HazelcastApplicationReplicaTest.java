@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.IMap;
+
+import de.codecentric.boot.admin.model.Application;
+
+public class HazelcastApplicationReplicaTest {
+
+	private IMap<String, Application> map;
+	private IMap<String, StatusRecord> statusMap;
+	private Map<String, Application> content = new HashMap<>();
+	private Runnable duringFetch;
+	private HazelcastApplicationReplica replica;
+
+	private Application app1 = Application.create("foo").withId("id-1")
+			.withHealthUrl("http://health-1").build();
+	private Application app2 = Application.create("foo").withId("id-2")
+			.withHealthUrl("http://health-2").build();
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		map = mock(IMap.class);
+		statusMap = mock(IMap.class);
+		when(map.size()).thenAnswer(new Answer<Integer>() {
+			@Override
+			public Integer answer(InvocationOnMock invocation) {
+				return content.size();
+			}
+		});
+		when(map.entrySet()).thenAnswer(new Answer<Set<Entry<String, Application>>>() {
+			@Override
+			public Set<Entry<String, Application>> answer(InvocationOnMock invocation) {
+				Set<Entry<String, Application>> fetched = new HashMap<>(content).entrySet();
+				if (duringFetch != null) {
+					duringFetch.run();
+				}
+				return fetched;
+			}
+		});
+		when(statusMap.entrySet()).thenReturn(
+				Collections.<Entry<String, StatusRecord>> emptySet());
+
+		content.put("id-1", app1);
+		replica = new HazelcastApplicationReplica(map, statusMap, 60_000L);
+	}
+
+	@Test
+	public void test_events_during_sync_are_kept() {
+		assertThat(replica.get("id-1"), is(app1));
+
+		// the events arrive after the maps' content was read
+		duringFetch = new Runnable() {
+			@Override
+			public void run() {
+				replica.entryAdded(event("id-2", app2));
+				replica.entryRemoved(event("id-1", null));
+			}
+		};
+		replica.mapCleared(null);
+
+		assertThat(replica.get("id-2"), is(app2));
+		assertThat(replica.get("id-1"), nullValue());
+		assertThat(replica.getCorrections(), is(0L));
+
+		// the next sync applies the fetched content again
+		duringFetch = null;
+		replica.mapCleared(null);
+		assertThat(replica.get("id-1"), is(app1));
+		assertThat(replica.get("id-2"), nullValue());
+	}
+
+	@SuppressWarnings("unchecked")
+	private EntryEvent<String, Application> event(String key, Application value) {
+		EntryEvent<String, Application> event = mock(EntryEvent.class);
+		when(event.getKey()).thenReturn(key);
+		when(event.getValue()).thenReturn(value);
+		return event;
+	}
+
+}
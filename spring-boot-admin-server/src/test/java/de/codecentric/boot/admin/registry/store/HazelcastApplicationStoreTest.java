@@ -0,0 +1,246 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+
+import de.codecentric.boot.admin.config.HazelcastStoreConfiguration;
+import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
+import de.codecentric.boot.admin.registry.ApplicationRegistry;
+import de.codecentric.boot.admin.registry.HashingApplicationUrlIdGenerator;
+
+public class HazelcastApplicationStoreTest {
+
+	private static HazelcastInstance hazelcast;
+
+	private IMap<String, Application> map;
+	private IMap<String, StatusRecord> statusMap;
+	private HazelcastApplicationStore store;
+
+	@BeforeClass
+	public static void startHazelcast() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		HazelcastStoreConfiguration.registerSerializers(config.getSerializationConfig());
+		hazelcast = Hazelcast.newHazelcastInstance(config);
+	}
+
+	@AfterClass
+	public static void stopHazelcast() {
+		hazelcast.shutdown();
+	}
+
+	@Before
+	public void setup() {
+		map = hazelcast.getMap("applications");
+		map.clear();
+		statusMap = hazelcast.getMap("statuses");
+		statusMap.clear();
+		hazelcast.getAtomicLong("applications-version").set(0L);
+		store = new HazelcastApplicationStore(map, statusMap,
+				hazelcast.getAtomicLong("applications-version"), hazelcast.getPartitionService());
+	}
+
+	@Test
+	public void test_serialization() {
+		Application application = Application.create("foo").withId("id")
+				.withHealthUrl("http://health").withManagementUrl("http://mgmt")
+				.withStatusInfo(StatusInfo.valueOf("UP", 42L)).build();
+		store.save(application);
+
+		Application found = store.find("id");
+		assertThat(found, is(application));
+		assertThat(found.getServiceUrl(), nullValue());
+		assertThat(found.getStatusInfo(), is(application.getStatusInfo()));
+		assertThat(found.getStatusInfo().getTimestamp(), is(42L));
+	}
+
+	@Test
+	public void test_batch() {
+		Application app1 = Application.create("foo").withId("id-1")
+				.withHealthUrl("http://health-1").build();
+		Application app2 = Application.create("foo").withId("id-2")
+				.withHealthUrl("http://health-2").build();
+		store.save(app1);
+
+		Collection<Application> replaced = store.saveAll(Arrays.asList(app1, app2));
+		assertThat(replaced.size(), is(1));
+		assertThat(store.getVersion(), is(2L));
+		assertThat(store.find(Arrays.asList("id-1", "id-2", "id-3")).size(), is(2));
+
+		Collection<Application> deleted = store.delete(Arrays.asList("id-2", "id-3"));
+		assertThat(deleted.size(), is(1));
+		assertThat(deleted.iterator().next(), is(app2));
+		assertThat(store.getVersion(), is(3L));
+		assertThat(store.findAllLocal().size(), is(1));
+		assertThat(store.isLocal("id-1"), is(true));
+	}
+
+	@Test
+	public void test_updateStatus() {
+		store.save(Application.create("foo").withId("id").withHealthUrl("http://health").build());
+
+		StatusUpdate update = store.updateStatus("id", StatusInfo.ofUp());
+		assertThat(update.isChanged(), is(true));
+		assertThat(update.getFrom().getStatus(), is("UNKNOWN"));
+		assertThat(update.getApplication().getStatusInfo().getStatus(), is("UP"));
+		assertThat(store.find("id").getStatusInfo().getStatus(), is("UP"));
+		assertThat(store.findByStatus("UP").size(), is(1));
+		assertThat(store.getVersion(), is(2L));
+
+		assertThat(store.updateStatus("id", StatusInfo.ofUp()).isChanged(), is(false));
+		assertThat(store.getVersion(), is(2L));
+		assertThat(store.updateStatus("unknown", StatusInfo.ofUp()), nullValue());
+	}
+
+	@Test
+	public void test_status_separated() {
+		Application application = Application.create("foo").withId("id")
+				.withHealthUrl("http://health").build();
+		store.save(application);
+		store.updateStatus("id", StatusInfo.valueOf("UP", 42L));
+		store.updateStatus("id", StatusInfo.valueOf("CUSTOM", 43L));
+
+		// the registration isn't rewritten by status updates
+		assertThat(map.get("id").getStatusInfo().getStatus(), is("UNKNOWN"));
+		assertThat(statusMap.get("id").getStatus(), is("CUSTOM"));
+		assertThat(statusMap.get("id").getTimestamp(), is(43L));
+		assertThat(store.find("id").getStatusInfo().getStatus(), is("CUSTOM"));
+
+		// a lost status is restored by the next update
+		statusMap.delete("id");
+		assertThat(store.find("id").getStatusInfo().getStatus(), is("UNKNOWN"));
+		StatusUpdate update = store.updateStatus("id", StatusInfo.ofDown());
+		assertThat(update.getFrom().getStatus(), is("UNKNOWN"));
+		assertThat(store.findByStatus("DOWN").size(), is(1));
+
+		store.delete("id");
+		assertThat(statusMap.containsKey("id"), is(false));
+	}
+
+	@Test
+	public void test_register_keeps_newer_status() {
+		test_register_keeps_newer_status(store);
+	}
+
+	@Test
+	public void test_register_keeps_newer_status_replica() {
+		store.setReplica(new HazelcastApplicationReplica(map, statusMap, 60_000L));
+		test_register_keeps_newer_status(store);
+	}
+
+	private void test_register_keeps_newer_status(HazelcastApplicationStore store) {
+		final HazelcastApplicationStore spy = spy(store);
+		Application application = Application.create("foo").withHealthUrl("http://health")
+				.build();
+		String id = newRegistry(spy).register(application).getId();
+
+		// the status is checked after the registry read the status, but before it saves
+		doAnswer(new Answer<Application>() {
+			@Override
+			public Application answer(InvocationOnMock invocation) throws Throwable {
+				Application read = (Application) invocation.callRealMethod();
+				spy.updateStatus(read.getId(), StatusInfo.ofUp());
+				return read;
+			}
+		}).when(spy).find(id);
+		doAnswer(new Answer<Collection<Application>>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public Collection<Application> answer(InvocationOnMock invocation) throws Throwable {
+				Collection<Application> read = (Collection<Application>) invocation
+						.callRealMethod();
+				for (Application a : read) {
+					spy.updateStatus(a.getId(), StatusInfo.ofDown());
+				}
+				return read;
+			}
+		}).when(spy).find(Collections.singleton(id));
+
+		newRegistry(spy).register(application);
+		assertThat(store.find(id).getStatusInfo().getStatus(), is("UP"));
+		assertThat(statusMap.get(id).getStatus(), is("UP"));
+
+		newRegistry(spy).registerAll(Collections.singletonList(application));
+		assertThat(store.find(id).getStatusInfo().getStatus(), is("DOWN"));
+		assertThat(statusMap.get(id).getStatus(), is("DOWN"));
+	}
+
+	private ApplicationRegistry newRegistry(ApplicationStore store) {
+		ApplicationRegistry registry = new ApplicationRegistry(store,
+				new HashingApplicationUrlIdGenerator());
+		registry.setApplicationEventPublisher(mock(ApplicationEventPublisher.class));
+		return registry;
+	}
+
+	@Test
+	public void test_replica() throws InterruptedException {
+		HazelcastApplicationReplica replica = new HazelcastApplicationReplica(map, statusMap,
+				60_000L);
+		store.setReplica(replica);
+
+		Application app1 = Application.create("foo").withId("id-1")
+				.withHealthUrl("http://health-1").build();
+		store.save(app1);
+		assertThat(store.find("id-1"), is(app1));
+
+		// written by another member
+		Application app2 = Application.create("foo").withId("id-2")
+				.withHealthUrl("http://health-2").build();
+		map.set("id-2", app2);
+		long deadline = System.currentTimeMillis() + 5_000L;
+		while (store.find("id-2") == null && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10L);
+		}
+
+		assertThat(store.find("id-2"), is(app2));
+		assertThat(store.findByName("foo").size(), is(2));
+
+		statusMap.set("id-2", StatusRecord.of(StatusInfo.ofUp()));
+		deadline = System.currentTimeMillis() + 5_000L;
+		while (!"UP".equals(store.find("id-2").getStatusInfo().getStatus())
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10L);
+		}
+		assertThat(store.findByStatus("UP").size(), is(1));
+		assertThat(replica.getUpdates() > 0L, is(true));
+		assertThat(replica.getCorrections(), is(0L));
+	}
+
+}
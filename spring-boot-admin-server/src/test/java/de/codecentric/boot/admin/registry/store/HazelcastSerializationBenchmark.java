@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+
+import de.codecentric.boot.admin.config.HazelcastStoreConfiguration;
+import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
+
+/**
+ * Compares writing to and reading from the Hazelcast-map of applications using the Java
+ * serialization and the compact {@link ApplicationSerializer}. The memory used per entry is
+ * reported by the {@link EntryCostProfiler} as secondary result <code>bytes-per-entry</code>.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec
+ * -Dbenchmark=de.codecentric.boot.admin.registry.store.HazelcastSerializationBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HazelcastSerializationBenchmark {
+
+	@Param({ "java", "compact" })
+	private String serialization;
+
+	@Param("10000")
+	private int applications;
+
+	private HazelcastInstance hazelcast;
+	private IMap<String, Application> map;
+	private Application[] entries;
+	private int next;
+
+	@Setup
+	public void setup() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		if ("compact".equals(serialization)) {
+			HazelcastStoreConfiguration.registerSerializers(config.getSerializationConfig());
+		}
+		hazelcast = Hazelcast.newHazelcastInstance(config);
+		map = hazelcast.getMap("applications");
+
+		entries = new Application[applications];
+		for (int i = 0; i < applications; i++) {
+			entries[i] = Application.create("application-" + (i % 100))
+					.withId(Integer.toHexString(0x10000000 + i))
+					.withHealthUrl("http://host-" + i + ":8080/mgmt/health")
+					.withManagementUrl("http://host-" + i + ":8080/mgmt")
+					.withServiceUrl("http://host-" + i + ":8080/")
+					.withStatusInfo(StatusInfo.valueOf("UP", System.currentTimeMillis())).build();
+			map.set(entries[i].getId(), entries[i]);
+		}
+		EntryCostProfiler.setMap(map);
+	}
+
+	@TearDown
+	public void teardown() {
+		EntryCostProfiler.setMap(null);
+		hazelcast.shutdown();
+	}
+
+	@Benchmark
+	public void put() {
+		next = (next + 1) % applications;
+		map.set(entries[next].getId(), entries[next]);
+	}
+
+	@Benchmark
+	public Application get() {
+		next = (next + 1) % applications;
+		return map.get(entries[next].getId());
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(HazelcastSerializationBenchmark.class.getSimpleName())
+				.addProfiler(EntryCostProfiler.class).build()).run();
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.registry.store;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.model.StatusInfo;
+
+public class SimpleApplicationStoreTest {
+
+	private SimpleApplicationStore store = new SimpleApplicationStore();
+
+	@Test
+	public void test_findByName() {
+		Application foo1 = Application.create("foo").withId("1").withHealthUrl("http://1").build();
+		Application foo2 = Application.create("foo").withId("2").withHealthUrl("http://2").build();
+		Application bar = Application.create("bar").withId("3").withHealthUrl("http://3").build();
+		store.save(foo1);
+		store.save(foo2);
+		store.save(bar);
+
+		assertThat(store.findByName("foo"), containsInAnyOrder(foo1, foo2));
+		assertThat(store.findByName("bar"), contains(bar));
+		assertThat(store.findByName("baz"), empty());
+	}
+
+	@Test
+	public void test_findByName_renamed() {
+		Application foo = Application.create("foo").withId("1").withHealthUrl("http://1").build();
+		store.save(foo);
+		Application renamed = Application.create(foo).withName("bar").build();
+		store.save(renamed);
+
+		assertThat(store.findByName("foo"), empty());
+		assertThat(store.findByName("bar"), contains(renamed));
+	}
+
+	@Test
+	public void test_findByName_deleted() {
+		Application foo = Application.create("foo").withId("1").withHealthUrl("http://1").build();
+		store.save(foo);
+		store.delete("1");
+
+		assertThat(store.findByName("foo"), empty());
+	}
+
+	@Test
+	public void test_findByStatus() {
+		Application foo = Application.create("foo").withId("1").withHealthUrl("http://1").build();
+		Application bar = Application.create("bar").withId("2").withHealthUrl("http://2").build();
+		store.save(foo);
+		store.save(bar);
+		Application up = store.updateStatus("1", StatusInfo.ofUp()).getApplication();
+
+		assertThat(store.findByStatus("UP"), contains(up));
+		assertThat(store.findByStatus("UNKNOWN"), contains(bar));
+
+		store.updateStatus("1", StatusInfo.ofDown());
+		assertThat(store.findByStatus("UP"), empty());
+	}
+
+	@Test
+	public void test_updateStatus() {
+		store.save(Application.create("foo").withId("1").withHealthUrl("http://1").build());
+		long version = store.getVersion();
+
+		StatusUpdate update = store.updateStatus("1", StatusInfo.ofUp());
+		assertThat(update.isChanged(), is(true));
+		assertThat(update.getFrom().getStatus(), is("UNKNOWN"));
+		assertThat(update.getTo().getStatus(), is("UP"));
+		assertThat(store.find("1").getStatusInfo().getStatus(), is("UP"));
+
+		StatusUpdate unchanged = store.updateStatus("1", StatusInfo.ofUp());
+		assertThat(unchanged.isChanged(), is(false));
+		assertThat(store.getVersion(), is(version + 1));
+
+		assertThat(store.updateStatus("2", StatusInfo.ofUp()), nullValue());
+	}
+
+	@Test
+	public void test_version_restarted() {
+		// a restarted server must not answer with the versions of the previous one
+		assertThat(new SimpleApplicationStore().getVersion(), not(store.getVersion()));
+	}
+}
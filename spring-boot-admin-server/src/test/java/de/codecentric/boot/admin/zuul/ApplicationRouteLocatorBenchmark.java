@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.zuul;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.netflix.zuul.filters.ProxyRouteLocator;
+import org.springframework.cloud.netflix.zuul.filters.ProxyRouteLocator.ProxyRouteSpec;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties.ZuulRoute;
+
+import de.codecentric.boot.admin.model.Application;
+import de.codecentric.boot.admin.registry.ApplicationRegistry;
+import de.codecentric.boot.admin.registry.HashingApplicationUrlIdGenerator;
+import de.codecentric.boot.admin.registry.store.SimpleApplicationStore;
+
+/**
+ * Measures the cost of routing a single proxied request. The <code>patterns</code> benchmark
+ * matches the path against the routes of all applications, as done before routes were looked up by
+ * id.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec
+ * -Dbenchmark=de.codecentric.boot.admin.zuul.ApplicationRouteLocatorBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApplicationRouteLocatorBenchmark {
+	private static final String PREFIX = "/api/applications";
+
+	@Param("10000")
+	private int applications;
+
+	private ApplicationRouteLocator locator;
+	private ProxyRouteLocator patternLocator;
+	private String path;
+
+	@Setup
+	public void setup() {
+		SimpleApplicationStore store = new SimpleApplicationStore();
+		ApplicationRegistry registry = new ApplicationRegistry(store,
+				new HashingApplicationUrlIdGenerator());
+		ZuulProperties patternProperties = new ZuulProperties();
+
+		String id = null;
+		for (int i = 0; i < applications; i++) {
+			id = "app-" + i;
+			Application application = Application.create("app")
+					.withHealthUrl("http://host-" + i + "/health")
+					.withManagementUrl("http://host-" + i).withId(id).build();
+			store.save(application);
+			addRoute(patternProperties, PREFIX + "/" + id + "/health/**",
+					application.getHealthUrl());
+			addRoute(patternProperties, PREFIX + "/" + id + "/*/**",
+					application.getManagementUrl());
+		}
+		// the last application is the worst case when matching all patterns
+		path = PREFIX + "/" + id + "/env/java.version";
+
+		locator = new ApplicationRouteLocator("/", registry, new ZuulProperties(), PREFIX);
+		locator.resetRoutes();
+		patternLocator = new ProxyRouteLocator("/", null, patternProperties);
+		patternLocator.resetRoutes();
+	}
+
+	private void addRoute(ZuulProperties properties, String path, String url) {
+		properties.getRoutes().put(path, new ZuulRoute(path, url));
+	}
+
+	@Benchmark
+	public ProxyRouteSpec byId() {
+		return locator.getMatchingRoute(path);
+	}
+
+	@Benchmark
+	public ProxyRouteSpec patterns() {
+		return patternLocator.getMatchingRoute(path);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(
+				ApplicationRouteLocatorBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -17,10 +17,14 @@ package de.codecentric.boot.admin.zuul;
 
 import static org.hamcrest.CoreMatchers.hasItems;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 import org.junit.Before;
@@ -88,4 +92,74 @@ public class ApplicationRouteLocatorTest {
 				locator.getMatchingRoute("/api/applications/1234/*/**"));
 	}
 
+	@Test
+	public void refreshRoutes() {
+		when(registry.getApplications()).thenReturn(Collections.<Application> emptyList());
+		locator.resetRoutes();
+
+		Application application = Application.create("app1")
+				.withHealthUrl("http://localhost/health").withId("1234").build();
+		when(registry.getApplication("1234")).thenReturn(application);
+
+		assertTrue(locator.refreshRoutes("1234"));
+		assertEquals(Collections.singleton("/api/applications/1234/health/**"),
+				locator.getRoutePaths());
+		assertEquals(new ProxyRouteLocator.ProxyRouteSpec("api/applications/1234/health", "",
+				"http://localhost/health", "/api/applications/1234/health", null),
+				locator.getMatchingRoute("/api/applications/1234/health"));
+
+		// refresh without changes
+		assertFalse(locator.refreshRoutes("1234"));
+
+		// management url added
+		when(registry.getApplication("1234")).thenReturn(
+				Application.create(application).withManagementUrl("http://localhost").build());
+		assertTrue(locator.refreshRoutes("1234"));
+		assertEquals(2, locator.getRoutes().size());
+
+		// deregistered
+		when(registry.getApplication("1234")).thenReturn(null);
+		assertTrue(locator.refreshRoutes("1234"));
+		assertEquals(0, locator.getRoutes().size());
+		assertNull(locator.getMatchingRoute("/api/applications/1234/health"));
+	}
+
+	@Test
+	public void refreshRoutes_leavesOthers() {
+		when(registry.getApplications()).thenReturn(
+				Arrays.asList(
+						Application.create("app1").withHealthUrl("http://localhost1/health")
+								.withId("1").build(),
+						Application.create("app2").withHealthUrl("http://localhost2/health")
+								.withId("2").build()));
+		locator.resetRoutes();
+
+		locator.refreshRoutes("2");
+
+		assertEquals(Collections.singleton("/api/applications/1/health/**"),
+				locator.getRoutePaths());
+		assertEquals("http://localhost1/health",
+				locator.getMatchingRoute("/api/applications/1/health").getLocation());
+	}
+
+	@Test
+	public void getApplicationRoute() {
+		when(registry.getApplications()).thenReturn(
+				Collections.singletonList(Application.create("app1")
+						.withHealthUrl("http://localhost/health")
+						.withManagementUrl("http://localhost").withId("1234").build()));
+		locator.setIgnoredEndpoints(Collections.singleton("status-interval"));
+		locator.resetRoutes();
+
+		assertEquals("/api/applications/1234/health/**",
+				locator.getApplicationRoute("/api/applications/1234/health").getPath());
+		assertEquals("/api/applications/1234/*/**",
+				locator.getApplicationRoute("/api/applications/1234/env/foo").getPath());
+		assertNull(locator.getApplicationRoute("/api/applications/1234/status-interval"));
+		assertNull(locator.getApplicationRoute("/api/applications/1234"));
+		assertNull(locator.getApplicationRoute("/api/applications/5678/health"));
+		assertNull(locator.getApplicationRoute("/api/applicationsX/1234/health"));
+		assertNull(locator.getMatchingRoute("/api/applications/1234/status-interval"));
+	}
+
 }
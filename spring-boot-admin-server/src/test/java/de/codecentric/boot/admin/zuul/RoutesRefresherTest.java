@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codecentric.boot.admin.zuul;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.codecentric.boot.admin.event.RoutesOutdatedEvent;
+
+public class RoutesRefresherTest {
+
+	private RoutesRefresher refresher;
+	private ApplicationRouteLocator locator;
+	private ApplicationZuulHandlerMapping handlerMapping;
+
+	@Before
+	public void setup() {
+		locator = mock(ApplicationRouteLocator.class);
+		handlerMapping = mock(ApplicationZuulHandlerMapping.class);
+		refresher = new RoutesRefresher(locator, handlerMapping);
+		refresher.setWindow(50L);
+		refresher.setMaxDelay(1_000L);
+	}
+
+	@After
+	public void teardown() {
+		refresher.destroy();
+	}
+
+	@Test
+	public void test_coalesce_applications() throws InterruptedException {
+		refresher.routesOutdated(new RoutesOutdatedEvent("1"));
+		refresher.routesOutdated(new RoutesOutdatedEvent("2"));
+		refresher.routesOutdated(new RoutesOutdatedEvent("1"));
+
+		verify(locator, timeout(1_000).times(1)).refreshRoutes("1");
+		verify(locator, timeout(1_000).times(1)).refreshRoutes("2");
+		verify(locator, never()).resetRoutes();
+		Thread.sleep(100L);
+		assertThat(refresher.getEventsReceived(), is(3L));
+		assertThat(refresher.getRefreshes(), is(1L));
+		assertThat(refresher.getRebuilds(), is(0L));
+	}
+
+	@Test
+	public void test_coalesce_all() throws InterruptedException {
+		refresher.routesOutdated(new RoutesOutdatedEvent("1"));
+		refresher.routesOutdated(new RoutesOutdatedEvent());
+		refresher.routesOutdated(new RoutesOutdatedEvent("2"));
+
+		verify(locator, timeout(1_000).times(1)).resetRoutes();
+		verify(handlerMapping, timeout(1_000).times(1)).registerHandlers();
+		Thread.sleep(100L);
+		verify(locator, never()).refreshRoutes(anyString());
+		assertThat(refresher.getRebuilds(), is(1L));
+	}
+
+	@Test
+	public void test_refresh_immediately() throws InterruptedException {
+		refresher.routesOutdated(new RoutesOutdatedEvent("1"));
+		refresher.refreshRoutes("1");
+
+		verify(locator, times(1)).refreshRoutes("1");
+		Thread.sleep(100L);
+		// the pending refresh was superseded
+		verify(locator, times(1)).refreshRoutes("1");
+		assertThat(refresher.getRefreshes(), is(1L));
+	}
+
+	@Test
+	public void test_maxDelay() throws InterruptedException {
+		refresher.setWindow(200L);
+		refresher.setMaxDelay(300L);
+
+		long start = System.currentTimeMillis();
+		// keep the events coming faster than the window
+		while (System.currentTimeMillis() - start < 600L) {
+			refresher.routesOutdated(new RoutesOutdatedEvent("1"));
+			Thread.sleep(20L);
+		}
+
+		// without the maximum delay there would be just one refresh after the last event
+		verify(locator, timeout(1_000).atLeast(2)).refreshRoutes("1");
+		assertThat(refresher.getEventsReceived() > refresher.getRefreshes(), is(true));
+	}
+
+}